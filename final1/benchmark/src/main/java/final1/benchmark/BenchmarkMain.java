@@ -0,0 +1,43 @@
+package final1.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, always adding the
+ * GC profiler, so the allocation rate is reported next to the speed.
+ * 
+ * @author robin
+ * @version 1
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+
+    }
+
+
+    /**
+     * run the benchmarks
+     * 
+     * @param args
+     *            the JMH command line options, e.g. a regular expression
+     *            selecting the benchmarks to run
+     * @throws RunnerException
+     *             if a benchmark fails
+     * @throws CommandLineOptionException
+     *             if the options are invalid
+     */
+    public static void main(String[] args) throws RunnerException,
+            CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
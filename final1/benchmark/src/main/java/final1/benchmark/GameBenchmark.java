@@ -0,0 +1,118 @@
+package final1.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import final1.connectfour.CFGame;
+import final1.connectfour.CFGameField;
+import final1.connectfour.CFMove;
+import final1.connectfour.CFThreatList;
+
+/**
+ * Benchmarks of the operations the search does on every node. Every
+ * benchmark leaves the position unchanged, so it can be repeated.
+ * 
+ * @author robin
+ * @version 1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    /** the name of the reference position */
+    @Param({ ReferencePositions.OPENING, ReferencePositions.MIDDLE,
+            ReferencePositions.LATE })
+    private String position;
+
+    /** the game in the reference position */
+    private CFGame game;
+    /** the first valid move of the position */
+    private CFMove move;
+
+
+    /** create the benchmark, the position is set up per trial */
+    public GameBenchmark() {
+
+    }
+
+
+    /**
+     * set up the reference position
+     */
+    @Setup
+    public void setUp() {
+        game = ReferencePositions.create(position);
+        move = game.getValidMoves().get(0);
+    }
+
+
+    /**
+     * do and undo one move
+     * 
+     * @return the hash of the position in between
+     */
+    @Benchmark
+    public long performUndo() {
+        game.perform(move);
+        long hash = game.getHash();
+        game.undo();
+        return hash;
+    }
+
+
+    /**
+     * evaluate the position
+     * 
+     * @return the evaluation
+     */
+    @Benchmark
+    public int evaluateState() {
+        return game.evaluateState();
+    }
+
+
+    /**
+     * generate and order the moves of the position
+     * 
+     * @return the moves
+     */
+    @Benchmark
+    public List<CFMove> getValidMoves() {
+        return game.getValidMoves();
+    }
+
+
+    /**
+     * update the threats after a move, and undo the update again
+     * 
+     * @return the rating in between
+     */
+    @Benchmark
+    public int addNewThreats() {
+        CFGameField field = game.getGameField();
+        CFThreatList threats = game.getThreats();
+        int player = game.getCurrentPlayer();
+        field.put(move.getX(), player);
+        threats.addNewThreats(move, player);
+        int rating = threats.getRating();
+        field.remove(move.getX());
+        threats.undoMove(move);
+        return rating;
+    }
+}
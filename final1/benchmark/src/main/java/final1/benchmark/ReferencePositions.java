@@ -0,0 +1,67 @@
+package final1.benchmark;
+
+import final1.connectfour.CFGame;
+import final1.connectfour.CFMove;
+
+/**
+ * The fixed set of Connect Four positions all benchmarks are run on, so their
+ * results stay comparable between engine versions. Do not change existing
+ * positions, only add new ones.
+ * 
+ * @author robin
+ * @version 1
+ */
+public final class ReferencePositions {
+
+    /** the empty board */
+    public static final String OPENING = "opening";
+    /** a position after a few moves in the center */
+    public static final String EARLY = "early";
+    /** a position with threats of both players */
+    public static final String MIDDLE = "middle";
+    /** a position close to the end of the game */
+    public static final String LATE = "late";
+
+
+    private ReferencePositions() {
+
+    }
+
+
+    /**
+     * set up a reference position
+     * 
+     * @param name
+     *            the name of the position
+     * @return a game without human players in that position
+     */
+    public static CFGame create(String name) {
+        CFGame game = new CFGame(0);
+        String moves = getMoves(name);
+        for (int i = 0; i < moves.length(); i++) {
+            game.perform(CFMove.valueOf(moves.charAt(i) - '0'));
+        }
+        return game;
+    }
+
+
+    /**
+     * get the moves that lead to a reference position
+     * 
+     * @param name
+     *            the name of the position
+     * @return the columns of the moves from the empty board, one digit each
+     */
+    private static String getMoves(String name) {
+        if (OPENING.equals(name)) {
+            return "";
+        } else if (EARLY.equals(name)) {
+            return "3332";
+        } else if (MIDDLE.equals(name)) {
+            return "33322411";
+        } else if (LATE.equals(name)) {
+            return "3332241121224536443342";
+        }
+        throw new IllegalArgumentException("unknown position " + name);
+    }
+}
@@ -0,0 +1,142 @@
+package final1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import final1.algorithm.AlphaBetaAlgorithm;
+import final1.algorithm.GameException;
+import final1.connectfour.CFGame;
+import final1.connectfour.CFMove;
+
+/**
+ * Benchmarks of complete searches with a fixed depth, with the root searched
+ * by one alpha beta search or by MTD(f). Every iteration is a single search
+ * from an empty transposition table, so a search does not profit from the
+ * one before. Besides the time per search, the searched nodes of every
+ * search are summed up as the secondary result "nodes".
+ * 
+ * @author robin
+ * @version 1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 50)
+@Measurement(iterations = 50)
+@Fork(1)
+public class SearchBenchmark {
+
+    /** the name of the reference position */
+    @Param({ ReferencePositions.OPENING, ReferencePositions.EARLY,
+            ReferencePositions.MIDDLE, ReferencePositions.LATE })
+    private String position;
+
+    /**
+     * the search depth. Every search is timed on its own, so it has to be deep
+     * enough that the search takes much longer than reading the clock.
+     */
+    @Param({ "11" })
+    private int depth;
+
+    /** the search of the root, alphabeta or mtdf */
+    @Param({ "alphabeta", "mtdf" })
+    private String root;
+
+    /** the search, with a transposition table cleared before every search */
+    private AlphaBetaAlgorithm<CFGame, CFMove> search;
+
+
+    /** create the benchmark, the search is set up per trial */
+    public SearchBenchmark() {
+
+    }
+
+
+    /**
+     * The nodes searched during one iteration, which is a single search. JMH
+     * reports the sum over all iterations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class NodeCounter {
+
+        /** the searched nodes */
+        private long nodes;
+
+
+        /** create a counter without any nodes */
+        public NodeCounter() {
+
+        }
+
+
+        /**
+         * reset the counter before every iteration
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+
+
+        /**
+         * @return the searched nodes
+         */
+        public long nodes() {
+            return nodes;
+        }
+    }
+
+
+    /**
+     * set up the search on the reference position
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        search = new AlphaBetaAlgorithm<CFGame, CFMove>(
+                ReferencePositions.create(position));
+        search.getOptions().setMaxDepth(depth);
+        search.getOptions().setMtdf("mtdf".equals(root));
+    }
+
+
+    /**
+     * forget the previous search, so every search does the same work. The
+     * table is cleared outside the measured time, because every iteration is
+     * one search.
+     */
+    @Setup(Level.Iteration)
+    public void clear() {
+        search.clearTable();
+    }
+
+
+    /**
+     * search the best move
+     * 
+     * @param counter
+     *            the counter of the searched nodes
+     * @return the best move
+     * @throws GameException
+     *             if the position has no move
+     */
+    @Benchmark
+    public CFMove getBestMove(NodeCounter counter) throws GameException {
+        CFMove move = search.getBestMove();
+        counter.nodes += search.getLimits().getNodes();
+        return move;
+    }
+}
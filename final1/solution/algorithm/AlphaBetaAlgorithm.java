@@ -1,6 +1,6 @@
 package final1.algorithm;
 
-import final1.Utility;
+import java.util.List;
 
 /**
  * An AI player for a generic game using the alpha beta algorithm in the NegaMax
@@ -18,19 +18,43 @@ public class AlphaBetaAlgorithm<G extends Game<M>, M extends Move> implements
         AIPlayer<Move> {
 
     /**
-     * the maximum recursion depth. When this value is reached,
-     * {@link Game#evaluateState()} is
-     * called instead of recursing further.
-     * 
+     * the default maximum recursion depth. When this value is reached,
+     * {@link Game#evaluateState()} is called instead of recursing further.
      */
     public static final int SEARCH_DEPTH = 11;
+    /** the size of the transposition table as a power of two */
+    public static final int TABLE_SIZE_BITS = 20;
+    /** the game in which this AI player acts */
+    private final G game;
+    /** the game as a {@link HashedGame}, null if it does not support hashing */
+    private final HashedGame<M> hashedGame;
+    /** the game as a {@link SymmetricGame}, null if it has no symmetries */
+    private final SymmetricGame<M> symmetricGame;
+    /** the game as an {@link OrderedGame}, null if it does not support it */
+    private final OrderedGame<M> orderedGame;
+    /** the killer moves and history counters, null without orderedGame */
+    private final MoveHistory history;
+    /** decides which moves are reduced and which positions extended */
+    private final SelectiveSearch<M> selective;
     /**
-     * the game in which this AI player acts
+     * the results of previous searches, kept over multiple moves. Allocated on
+     * the first search, null if the game does not support hashing
      */
-    private final G game;
+    private TranspositionTable<M> table;
     /** the move that was found on the last search run */
     private M foundMove;
 
+    /** the settings of the search */
+    private final SearchOptions options = new SearchOptions();
+    /** the time and node budget of the search */
+    private final SearchLimits limits = new SearchLimits();
+    /** the statistics of the current or last search */
+    private final SearchStatistics statistics = new SearchStatistics();
+    /** the depth of the iteration that is currently searched */
+    private int rootDepth;
+    /** the move to search first at the root, from the previous iteration */
+    private M rootMove;
+
 
     /**
      * initialize this player
@@ -39,60 +63,432 @@ public class AlphaBetaAlgorithm<G extends Game<M>, M extends Move> implements
      *            the game in which this AI player acts
      */
     public AlphaBetaAlgorithm(G game) {
+        this(game, null);
+    }
+
+
+    /**
+     * initialize a player that shares its transposition table with other
+     * players
+     * 
+     * @param game
+     *            the game in which this AI player acts
+     * @param table
+     *            the table to use, null to allocate one on the first search
+     */
+    @SuppressWarnings("unchecked")
+    protected AlphaBetaAlgorithm(G game, TranspositionTable<M> table) {
         this.game = game;
+        this.table = table;
+        hashedGame = game instanceof HashedGame ? (HashedGame<M>) game : null;
+        symmetricGame = game instanceof SymmetricGame ? (SymmetricGame<M>) game
+                : null;
+        if (game instanceof OrderedGame) {
+            orderedGame = (OrderedGame<M>) game;
+            history = new MoveHistory(orderedGame.getMoveIndexCount());
+        } else {
+            orderedGame = null;
+            history = null;
+        }
+        selective = new SelectiveSearch<M>(game, options);
     }
 
 
     /**
-     * recursively evaluate the chance of winning using an Alpha-Beta-Search,
-     * saving the best found move to {@link #foundMove}
+     * Recursively evaluate the chance of winning using an Alpha-Beta-Search,
+     * saving the best found move to {@link #foundMove}. The search fails
+     * soft: if the value is outside of the window, the returned bound may lie
+     * beyond alpha or beta, which lets {@link #searchMtdf(int)} converge in
+     * fewer steps.
      * 
      * @param depth
      *            the recursion depth
-     * @param maxValue
+     * @param ply
+     *            the distance from the root
+     * @param alpha
      *            the initial search value
      * @param beta
      *            the cut off value
      * @return the possibility of winning
      */
-    private double recursiveEval(int depth, double alpha, double beta) {
-        double maxValue = alpha;
-        if (depth > 0 && game.getState() == GameState.PLAYING) {
-            for (M move : game.getValidMoves()) {
-                game.perform(move);
-                double value = -recursiveEval(depth - 1, -beta, -maxValue);
-                game.undo();
-
-                if (Utility.greaterThan(value, maxValue)) {
-                    maxValue = value;
-                    if (depth == SEARCH_DEPTH) {
-                        foundMove = move;
-                    }
-                    if (Utility.greaterThanOrEqual(value, beta)) {
-                        break;
+    private int recursiveEval(int depth, int ply, int alpha, int beta) {
+        if (limits.countNode(rootDepth > 1)) {
+            // the first iteration is never aborted, so there is a result
+            return 0;
+        }
+        if (depth <= 0 || game.getState() != GameState.PLAYING) {
+            statistics.countLeaf();
+            return Score.atPly(game.evaluateState(), ply);
+        }
+        M hashMove = null;
+        long hash = 0;
+        if (table != null) {
+            hash = symmetricGame != null ? symmetricGame.getCanonicalHash()
+                    : hashedGame.getHash();
+            long entry = table.probe(hash);
+            statistics.countProbe(entry != 0);
+            if (entry != 0) {
+                hashMove = orient(table.getMove(hash));
+                int value = Score.fromTable(TranspositionTable.valueOf(entry),
+                        ply);
+                if (ply != 0
+                        && TranspositionTable.depthOf(entry) >= depth
+                        && TranspositionTable.isCutoff(entry, value, alpha,
+                                beta)) {
+                    return value;
+                }
+            }
+        }
+        if (ply == 0 && rootMove != null) {
+            hashMove = rootMove;
+        }
+
+        int maxValue = alpha;
+        int bestValue = -Score.INFINITY;
+        M bestMove = null;
+        if (history != null) {
+            history.setPly(ply);
+        }
+        List<M> moves = orderedMoves(hashMove);
+        for (int i = 0; i < moves.size(); i++) {
+            M move = moves.get(i);
+            boolean reduced = selective.isReduced(i, move, depth);
+            game.perform(move);
+            int value = searchChild(i == 0, reduced, depth, ply, maxValue,
+                    beta);
+            game.undo();
+            if (limits.isExceeded()) {
+                return 0;
+            }
+
+            bestValue = Math.max(bestValue, value);
+            if (value > maxValue) {
+                maxValue = value;
+                bestMove = move;
+                if (ply == 0) {
+                    foundMove = move;
+                }
+                if (value >= beta) {
+                    statistics.countCutoff(i);
+                    if (history != null) {
+                        history.addCutoff(ply, orderedGame.getMoveIndex(move),
+                                depth);
                     }
+                    break;
                 }
             }
-        } else {
-            maxValue = game.evaluateState();
         }
-        return maxValue;
+
+        if (table != null) {
+            int bound = TranspositionTable.EXACT;
+            if (bestMove == null) {
+                bound = TranspositionTable.UPPER_BOUND;
+                bestMove = hashMove;
+            } else if (bestValue >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            }
+            table.store(hash, depth, Score.toTable(bestValue, ply), bound,
+                    orient(bestMove));
+        }
+        return bestValue;
     }
 
 
+    /**
+     * Search the position after a move. In a principal variation search, only
+     * the first move is searched with the full window. The other moves are
+     * expected to be worse, which is proven by a search with a null window
+     * above alpha. Only if that search fails high, the move is searched again
+     * with the full window. A reduced move is first searched one ply less
+     * deep with the null window, and a forced reply one ply deeper.
+     * 
+     * @param first
+     *            if this is the first move of the position
+     * @param reduced
+     *            if the move is searched with a reduced depth first
+     * @param depth
+     *            the recursion depth of the position before the move
+     * @param ply
+     *            the distance of the position before the move from the root
+     * @param alpha
+     *            the lower bound of the window
+     * @param beta
+     *            the upper bound of the window
+     * @return the value of the move from the view of the player who did it
+     */
+    private int searchChild(boolean first, boolean reduced, int depth,
+            int ply, int alpha, int beta) {
+        int childDepth = depth - 1;
+        if (selective.isExtended(ply + 1, rootDepth)) {
+            childDepth++;
+        } else if (reduced) {
+            int value = -recursiveEval(childDepth - 1, ply + 1, -alpha - 1,
+                    -alpha);
+            if (limits.isExceeded() || value <= alpha) {
+                return value;
+            }
+        }
+        if (first || !options.isPrincipalVariationSearch()) {
+            return -recursiveEval(childDepth, ply + 1, -beta, -alpha);
+        }
+        int value = -recursiveEval(childDepth, ply + 1, -alpha - 1, -alpha);
+        if (!limits.isExceeded() && value > alpha && value < beta) {
+            value = -recursiveEval(childDepth, ply + 1, -beta, -alpha);
+        }
+        return value;
+    }
+
+
+    /**
+     * Transform a move between the current position and its canonical
+     * orientation, in which moves are stored in the table. The
+     * transformation is its own inverse.
+     * 
+     * @param move
+     *            the move, may be null
+     * @return the transformed move
+     */
+    private M orient(M move) {
+        if (move != null && symmetricGame != null
+                && symmetricGame.isTransformed()) {
+            return symmetricGame.transformMove(move);
+        }
+        return move;
+    }
+
+
+    /**
+     * get the valid moves of the game, with the best move of a previous search
+     * moved to the front
+     * 
+     * @param first
+     *            the move to search first, may be null
+     * @return the moves in the order they should be searched
+     */
+    private List<M> orderedMoves(M first) {
+        List<M> moves = game.getValidMoves();
+        if (first != null) {
+            int index = moves.indexOf(first);
+            if (index > 0) {
+                moves.add(0, moves.remove(index));
+            }
+        }
+        return moves;
+    }
+
+
+    /**
+     * Search the best move. Without a time or node limit, the game tree is
+     * searched once with the maximum depth, see {@link #getOptions()}. Otherwise, the search is
+     * iteratively deepened from depth 1 until the budget runs out or the
+     * maximum depth is reached. The best move of the last completed iteration
+     * is returned, and searched first in the following iteration.
+     * 
+     * @return the estimated best move for the active player. If every move
+     *         loses, the move that loses last.
+     * @throws GameException
+     *             when no move is possible.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public M getBestMove() throws GameException {
-        foundMove = null;
-        recursiveEval(SEARCH_DEPTH, Double.NEGATIVE_INFINITY,
-                Double.POSITIVE_INFINITY);
-        if (foundMove != null) {
-            return foundMove;
+        if (hashedGame != null && table == null) {
+            table = new TranspositionTable<M>(TABLE_SIZE_BITS);
+        }
+        boolean deterministic = options.isDeterministic();
+        if (deterministic) {
+            clearTable();
+        }
+        limits.start(!deterministic);
+        statistics.start();
+        SearchHelpers<M> helpers = null;
+        int threadCount = deterministic ? 1 : options.getThreadCount();
+        if (threadCount > 1 && table != null
+                && game instanceof CopyableGame) {
+            helpers = new SearchHelpers<M>((CopyableGame<M>) game, table,
+                    options, threadCount - 1);
+        }
+        int firstDepth = limits.hasBudget() ? 1 : options.getMaxDepth();
+        M bestMove = iterate(firstDepth);
+        if (helpers != null) {
+            helpers.stop();
+        }
+        statistics.finish(limits.getNodes());
+        if (bestMove != null) {
+            return bestMove;
         } else {
             throw new GameException("No move found");
         }
     }
 
 
+    /**
+     * search with increasing depth until the maximum depth is reached or the
+     * search is aborted
+     * 
+     * @param firstDepth
+     *            the depth of the first iteration
+     * @return the best move of the last completed iteration, null if there is
+     *         none
+     */
+    M iterate(int firstDepth) {
+        M bestMove = null;
+        rootMove = null;
+        if (history != null) {
+            history.newSearch();
+            orderedGame.setMoveHistory(history);
+        }
+        int score = Score.INFINITY;
+        for (int depth = firstDepth; depth <= options.getMaxDepth()
+                && !limits.isExceeded(); depth++) {
+            rootDepth = depth;
+            int value = searchRoot(score);
+            if (!limits.isExceeded()) {
+                bestMove = foundMove;
+                rootMove = foundMove;
+                score = value;
+                statistics.completeIteration(depth, limits.getNodes(),
+                        value);
+            }
+        }
+        return bestMove;
+    }
+
+
+    /**
+     * Search the root position with the depth {@link #rootDepth}. If the
+     * score of the previous iteration is known, the search starts with an
+     * aspiration window around it, and is only repeated with the full window
+     * if the score is outside of the aspiration window. Decisive scores are
+     * always searched with the full window.
+     * 
+     * @param previousScore
+     *            the score of the previous iteration, {@link Score#INFINITY}
+     *            if unknown
+     * @return the score of the root position
+     */
+    private int searchRoot(int previousScore) {
+        foundMove = null;
+        if (options.isMtdf()) {
+            return searchMtdf(previousScore == Score.INFINITY ? 0
+                    : previousScore);
+        }
+        int window = options.getAspirationWindow();
+        if (window > 0 && !Score.isDecisive(previousScore)) {
+            int alpha = previousScore - window;
+            int beta = previousScore + window;
+            int value = recursiveEval(rootDepth, 0, alpha, beta);
+            if (limits.isExceeded() || value > alpha && value < beta) {
+                return value;
+            }
+            // only open the side of the window the score fell out of
+            foundMove = null;
+            if (value > alpha) {
+                return recursiveEval(rootDepth, 0, alpha, Score.INFINITY);
+            } else {
+                return recursiveEval(rootDepth, 0, -Score.INFINITY, beta);
+            }
+        }
+        return recursiveEval(rootDepth, 0, -Score.INFINITY, Score.INFINITY);
+    }
+
+
+    /**
+     * Search the root position with the depth {@link #rootDepth} by MTD(f).
+     * The score is narrowed down by a sequence of searches with a null
+     * window, each of which only proves whether the score is above or below
+     * a guess. The searches of the same tree repeat each other, so the
+     * transposition table has to answer most of the positions. The best move
+     * is the one found by the last search that failed high.
+     * 
+     * @param guess
+     *            the first guess of the score
+     * @return the score of the root position
+     */
+    private int searchMtdf(int guess) {
+        int value = guess;
+        int lower = -Score.INFINITY;
+        int upper = Score.INFINITY;
+        while (lower < upper && !limits.isExceeded()) {
+            int beta = value == lower ? value + 1 : value;
+            value = recursiveEval(rootDepth, 0, beta - 1, beta);
+            if (value < beta) {
+                upper = value;
+            } else {
+                lower = value;
+            }
+        }
+        return value;
+    }
+
+
+    /**
+     * Stop the current search as soon as possible. May be called from any
+     * thread. The search returns the best move of the last completed
+     * iteration, if there is one.
+     */
+    public void stop() {
+        limits.stop();
+    }
+
+
+    /**
+     * forget the results of previous searches, i.e. the transposition table
+     * and the move history, so the next search starts from scratch
+     */
+    public void clearTable() {
+        if (table != null) {
+            table.clear();
+        }
+        if (history != null) {
+            history.clear();
+        }
+    }
+
+
+    /**
+     * get the settings of the search, which can be changed between searches
+     * 
+     * @return the options
+     */
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+
+    /**
+     * get the time and node budget of the search, which can be changed
+     * between searches
+     * 
+     * @return the limits
+     */
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+
+    /**
+     * get the statistics of the last search. They are reset when the next
+     * search starts.
+     * 
+     * @return the statistics
+     */
+    public SearchStatistics getLastStatistics() {
+        return statistics;
+    }
+
+
+    /**
+     * get the transposition table, to share it with other searches
+     * 
+     * @return the table, null if the game does not support hashing or no
+     *         search was run yet
+     */
+    protected TranspositionTable<M> getTable() {
+        return table;
+    }
+
+
     /**
      * get the game in which this player acts
      * 
@@ -101,5 +497,4 @@ public class AlphaBetaAlgorithm<G extends Game<M>, M extends Move> implements
     protected G getGame() {
         return game;
     }
-
 }
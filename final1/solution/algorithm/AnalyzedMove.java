@@ -0,0 +1,80 @@
+package final1.algorithm;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A root move analysed by a {@link MultiPvSearch}, with its exact score and
+ * the line the search expects after it.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public final class AnalyzedMove<M extends Move> {
+
+    /** the move */
+    private final M move;
+    /** the score of the move from the view of the player who does it */
+    private final int score;
+    /** the expected line, starting with the move */
+    private final List<M> principalVariation;
+
+
+    /**
+     * initialize an analysed move
+     * 
+     * @param move
+     *            the move
+     * @param score
+     *            the score of the move from the view of the player who does
+     *            it
+     * @param principalVariation
+     *            the expected line, starting with the move
+     */
+    AnalyzedMove(M move, int score, List<M> principalVariation) {
+        this.move = move;
+        this.score = score;
+        this.principalVariation = Collections
+                .unmodifiableList(principalVariation);
+    }
+
+
+    /**
+     * @return the move
+     */
+    public M getMove() {
+        return move;
+    }
+
+
+    /**
+     * get the score of the move from the view of the player who does it. See
+     * {@link Score} for the meaning of the values.
+     * 
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+
+    /**
+     * get the line of best play the search expects, starting with the move.
+     * It may be shorter than the search depth if the line could not be
+     * followed through the transposition table.
+     * 
+     * @return the moves of the line
+     */
+    public List<M> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+
+    @Override
+    public String toString() {
+        return move + " " + score + " " + principalVariation;
+    }
+}
@@ -0,0 +1,24 @@
+package final1.algorithm;
+
+/**
+ * A game that can create independent copies of itself. Games implementing
+ * this interface can be searched by multiple threads at once, each working on
+ * its own copy, see {@link SearchOptions#setThreadCount(int)}.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public interface CopyableGame<M extends Move> extends Game<M> {
+
+    /**
+     * Create a copy of this game in the current position. Performing moves on
+     * the copy must not change this game and vice versa. The copy is only
+     * used for searching, so it does not need players.
+     * 
+     * @return the copy
+     */
+    public CopyableGame<M> copy();
+}
@@ -18,6 +18,10 @@ public interface Game<M extends Move> {
      * among which the active player can choose.
      * If the game is over (one player has won) or no move
      * is possible the list is empty.
+     * Implementations may reuse the list to avoid allocations. It stays valid
+     * while further moves are performed and undone, but not after the next
+     * call of this method in the current position or after the current
+     * position was undone.
      * 
      * @return the list of possible moves.
      */
@@ -26,11 +30,13 @@ public interface Game<M extends Move> {
 
     /**
      * Locally evaluates the current state of the game with respect
-     * to the active player.
+     * to the active player. A won state is rated {@link Score#WIN}, a lost
+     * state -{@link Score#WIN}, and every other state within
+     * {@link Score#MIN_HEURISTIC} and {@link Score#MAX_HEURISTIC}.
      * 
      * @return a local evaluation of the current game state.
      */
-    public double evaluateState();
+    public int evaluateState();
 
 
     /**
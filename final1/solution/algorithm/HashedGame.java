@@ -0,0 +1,25 @@
+package final1.algorithm;
+
+/**
+ * A game that can identify its positions by a hash value. Games implementing
+ * this interface allow the {@link AlphaBetaAlgorithm} to remember positions it
+ * has already searched in a {@link TranspositionTable}.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public interface HashedGame<M extends Move> extends Game<M> {
+
+    /**
+     * Returns a hash of the current position. Two equal positions must have
+     * the same hash, independent of the order of moves that led to them.
+     * The hash should be updated incrementally in {@link #perform(Move)} and
+     * {@link #undo()}, as it is queried at every node of the search.
+     * 
+     * @return the hash of the current position
+     */
+    public long getHash();
+}
@@ -0,0 +1,134 @@
+package final1.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node of the tree of a {@link MonteCarloTreeSearch}. It stores how often
+ * the position after its move was visited and how many of the games played
+ * from there the player who did the move won.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+class MonteCarloNode<M extends Move> {
+
+    /** the move that leads to this node, null for the root */
+    private final M move;
+    /** the moves that have no child node yet, null until first visited */
+    private List<M> untriedMoves;
+    /** the child nodes */
+    private final List<MonteCarloNode<M>> children = new ArrayList<MonteCarloNode<M>>();
+    /** the number of games played through this node */
+    private int visits;
+    /**
+     * the sum of the results of these games from the view of the player who
+     * did the move, 1 for a win and 0.5 for a draw
+     */
+    private double wins;
+
+
+    /**
+     * create a node
+     * 
+     * @param move
+     *            the move that leads to the node, null for the root
+     */
+    MonteCarloNode(M move) {
+        this.move = move;
+    }
+
+
+    /**
+     * @return the move that leads to this node
+     */
+    M getMove() {
+        return move;
+    }
+
+
+    /**
+     * @return the number of games played through this node
+     */
+    int getVisits() {
+        return visits;
+    }
+
+
+    /**
+     * check if every move of the position has a child node. Must be called
+     * while the game is in the position of this node.
+     * 
+     * @param game
+     *            the game
+     * @return true if there are no untried moves
+     */
+    boolean isExpanded(Game<M> game) {
+        if (untriedMoves == null) {
+            // the game may reuse the list, so copy it
+            untriedMoves = new ArrayList<M>(game.getValidMoves());
+        }
+        return untriedMoves.isEmpty();
+    }
+
+
+    /**
+     * Add a child for the next untried move. Moves are tried in the order of
+     * {@link Game#getValidMoves()}, so the best moves are tried first if the
+     * game orders its moves. {@link #isExpanded(Game)} must have returned
+     * false before.
+     * 
+     * @return the new child
+     */
+    MonteCarloNode<M> expand() {
+        MonteCarloNode<M> child = new MonteCarloNode<M>(untriedMoves.remove(0));
+        children.add(child);
+        return child;
+    }
+
+
+    /**
+     * select the child with the highest upper confidence bound (UCT)
+     * 
+     * @param exploration
+     *            the weight of the exploration term
+     * @return the child, null if there are no children
+     */
+    MonteCarloNode<M> selectChild(double exploration) {
+        double logVisits = Math.log(visits);
+        MonteCarloNode<M> best = null;
+        double bestBound = Double.NEGATIVE_INFINITY;
+        for (MonteCarloNode<M> child : children) {
+            double bound = child.wins / child.visits + exploration
+                    * Math.sqrt(logVisits / child.visits);
+            if (bound > bestBound) {
+                bestBound = bound;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+
+    /**
+     * count a game played through this node
+     * 
+     * @param result
+     *            the result from the view of the player who did the move
+     */
+    void update(double result) {
+        visits++;
+        wins += result;
+    }
+
+
+    /**
+     * @return the child nodes
+     */
+    List<MonteCarloNode<M>> getChildren() {
+        return children;
+    }
+}
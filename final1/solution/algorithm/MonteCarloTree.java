@@ -0,0 +1,146 @@
+package final1.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * One search tree of a {@link MonteCarloTreeSearch}, searched by one thread.
+ * Every iteration selects a path through the tree with UCT, adds one node to
+ * it, and plays random moves from there until the game ends. The result is
+ * counted in every node of the path.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+class MonteCarloTree<M extends Move> {
+
+    /** the maximum number of random moves, for games that may not end */
+    private static final int MAX_ROLLOUT_PLIES = 1000;
+
+    /** the game to search, which is in the root position between iterations */
+    private final Game<M> game;
+    /** the source of the random moves */
+    private final Random random;
+    /** the weight of the exploration term of UCT */
+    private final double exploration;
+    /** the maximum number of nodes of the tree */
+    private final int maxNodes;
+    /** the root of the tree */
+    private final MonteCarloNode<M> root = new MonteCarloNode<M>(null);
+    /** the nodes of the path of the current iteration */
+    private final List<MonteCarloNode<M>> path = new ArrayList<MonteCarloNode<M>>();
+    /** the number of nodes of the tree */
+    private int nodeCount = 1;
+
+
+    /**
+     * create a tree with only the root
+     * 
+     * @param game
+     *            the game to search. It must not be used by anyone else while
+     *            the tree is searched.
+     * @param random
+     *            the source of the random moves
+     * @param exploration
+     *            the weight of the exploration term of UCT
+     * @param maxNodes
+     *            the maximum number of nodes of the tree. When it is reached,
+     *            the random games start at the leaves of the tree.
+     */
+    MonteCarloTree(Game<M> game, Random random, double exploration,
+            int maxNodes) {
+        this.game = game;
+        this.random = random;
+        this.exploration = exploration;
+        this.maxNodes = maxNodes;
+    }
+
+
+    /**
+     * search until the budget is used up, with at least one iteration
+     * 
+     * @param limits
+     *            the budget, which counts an iteration as one node
+     */
+    void search(SearchLimits limits) {
+        while (!limits.countNode(root.getVisits() > 0)) {
+            iterate();
+        }
+    }
+
+
+    /**
+     * do one iteration of the search
+     */
+    private void iterate() {
+        path.clear();
+        path.add(root);
+        MonteCarloNode<M> node = root;
+        while (game.getState() == GameState.PLAYING && node.isExpanded(game)
+                && !node.getChildren().isEmpty()) {
+            node = node.selectChild(exploration);
+            game.perform(node.getMove());
+            path.add(node);
+        }
+        if (game.getState() == GameState.PLAYING && nodeCount < maxNodes
+                && !node.isExpanded(game)) {
+            node = node.expand();
+            nodeCount++;
+            game.perform(node.getMove());
+            path.add(node);
+        }
+        int plies = 0;
+        while (game.getState() == GameState.PLAYING
+                && plies < MAX_ROLLOUT_PLIES) {
+            List<M> moves = game.getValidMoves();
+            game.perform(moves.get(random.nextInt(moves.size())));
+            plies++;
+        }
+        double result = result(game.evaluateState());
+        for (int i = 0; i < plies; i++) {
+            game.undo();
+        }
+        // the result is from the view of the player who has the turn now,
+        // which is the player who did the last move of the path if the
+        // number of random moves is odd
+        if (plies % 2 == 0) {
+            result = 1 - result;
+        }
+        for (int i = path.size() - 1; i > 0; i--) {
+            path.get(i).update(result);
+            game.undo();
+            result = 1 - result;
+        }
+        root.update(result);
+    }
+
+
+    /**
+     * convert the evaluation of the final position of a random game into the
+     * result of the game
+     * 
+     * @param evaluation
+     *            the evaluation, from the view of the player who has the turn
+     * @return 1 if that player won, 0 if they lost, 0.5 for a draw
+     */
+    private static double result(int evaluation) {
+        if (evaluation > 0) {
+            return 1;
+        } else if (evaluation < 0) {
+            return 0;
+        }
+        return 0.5;
+    }
+
+
+    /**
+     * @return the children of the root
+     */
+    List<MonteCarloNode<M>> getRootChildren() {
+        return root.getChildren();
+    }
+}
@@ -0,0 +1,263 @@
+package final1.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An AI player for a generic game using a Monte Carlo tree search with the
+ * UCT selection rule. Instead of a heuristic evaluation, it rates moves by
+ * the results of random games, and only needs the evaluation to tell who won
+ * at the end of a game.
+ * 
+ * With more than one thread, every thread builds its own tree on its own copy
+ * of the game (root parallelization), and the visits of the moves of the
+ * root are summed up at the end. This needs a {@link CopyableGame}, other
+ * games are always searched by one thread.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public class MonteCarloTreeSearch<M extends Move> implements AIPlayer<M> {
+
+    /** the default number of iterations if there is no other limit */
+    public static final long ITERATIONS = 100000;
+    /** the default maximum number of nodes of all trees together */
+    public static final int MAX_NODES = 1 << 20;
+    /** the default weight of the exploration term of UCT */
+    public static final double EXPLORATION = Math.sqrt(2);
+
+    /** the game in which this AI player acts */
+    private final Game<M> game;
+    /** the source of the seeds of the trees */
+    private final Random random = new Random();
+    /** the time limit per move in milliseconds, 0 for none */
+    private long timeLimit;
+    /** the number of iterations per move, 0 for no limit */
+    private long iterationLimit;
+    /** the maximum number of nodes of all trees together */
+    private int maxNodes = MAX_NODES;
+    /** the number of threads searching in parallel */
+    private int threadCount = 1;
+    /** the weight of the exploration term of UCT */
+    private double exploration = EXPLORATION;
+    /** the number of iterations of the last search */
+    private long iterations;
+    /** the statistics of the last search, counting iterations as nodes */
+    private final SearchStatistics statistics = new SearchStatistics();
+
+
+    /**
+     * initialize this player
+     * 
+     * @param game
+     *            the game in which this AI player acts
+     */
+    public MonteCarloTreeSearch(Game<M> game) {
+        this.game = game;
+    }
+
+
+    /**
+     * Search the best move until the time or iteration limit is reached. If
+     * no limit is set, {@value #ITERATIONS} iterations are done. The move of
+     * the root that was visited most often is returned.
+     * 
+     * @return the estimated best move for the active player.
+     * @throws GameException
+     *             when no move is possible.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public M getBestMove() throws GameException {
+        statistics.start();
+        int treeCount = game instanceof CopyableGame ? threadCount : 1;
+        List<MonteCarloTree<M>> trees = new ArrayList<MonteCarloTree<M>>();
+        List<SearchLimits> treeLimits = new ArrayList<SearchLimits>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < treeCount; i++) {
+            Game<M> treeGame = i == 0 ? game : ((CopyableGame<M>) game).copy();
+            final MonteCarloTree<M> tree = new MonteCarloTree<M>(treeGame,
+                    new Random(random.nextLong()), exploration, maxNodes
+                            / treeCount);
+            final SearchLimits limits = createLimits(treeCount);
+            trees.add(tree);
+            treeLimits.add(limits);
+            if (i > 0) {
+                Thread thread = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        tree.search(limits);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+        }
+        trees.get(0).search(treeLimits.get(0));
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        iterations = 0;
+        for (SearchLimits limits : treeLimits) {
+            // the last node counted is the one that exceeded the budget
+            iterations += limits.getNodes() - 1;
+        }
+        statistics.finish(iterations);
+        return mostVisitedMove(trees);
+    }
+
+
+    /**
+     * create the budget of one tree
+     * 
+     * @param treeCount
+     *            the number of trees the iterations are split among
+     * @return the started budget
+     */
+    private SearchLimits createLimits(int treeCount) {
+        SearchLimits limits = new SearchLimits();
+        limits.setTimeLimit(timeLimit);
+        if (iterationLimit > 0 || timeLimit == 0) {
+            long total = iterationLimit > 0 ? iterationLimit : ITERATIONS;
+            limits.setNodeLimit(Math.max(1, total / treeCount));
+        }
+        limits.start();
+        return limits;
+    }
+
+
+    /**
+     * sum up the visits of the moves of the roots of all trees
+     * 
+     * @param trees
+     *            the searched trees
+     * @return the move with the most visits
+     * @throws GameException
+     *             if no tree has a move
+     */
+    private M mostVisitedMove(List<MonteCarloTree<M>> trees)
+            throws GameException {
+        List<M> moves = new ArrayList<M>();
+        List<Long> visits = new ArrayList<Long>();
+        for (MonteCarloTree<M> tree : trees) {
+            for (MonteCarloNode<M> child : tree.getRootChildren()) {
+                int index = moves.indexOf(child.getMove());
+                if (index < 0) {
+                    moves.add(child.getMove());
+                    visits.add((long) child.getVisits());
+                } else {
+                    visits.set(index, visits.get(index) + child.getVisits());
+                }
+            }
+        }
+        M best = null;
+        long bestVisits = -1;
+        for (int i = 0; i < moves.size(); i++) {
+            if (visits.get(i) > bestVisits) {
+                bestVisits = visits.get(i);
+                best = moves.get(i);
+            }
+        }
+        if (best == null) {
+            throw new GameException("No move found");
+        }
+        return best;
+    }
+
+
+    /**
+     * limit the time a search may take
+     * 
+     * @param millis
+     *            the time limit in milliseconds, 0 for no limit
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimit = millis;
+    }
+
+
+    /**
+     * limit the number of iterations of a search, which are split evenly
+     * among the threads
+     * 
+     * @param iterationLimit
+     *            the number of iterations, 0 for no limit
+     */
+    public void setIterationLimit(long iterationLimit) {
+        this.iterationLimit = iterationLimit;
+    }
+
+
+    /**
+     * limit the memory of the search. When the trees have this many nodes
+     * together, they stop growing.
+     * 
+     * @param maxNodes
+     *            the maximum number of nodes, defaults to {@value #MAX_NODES}
+     */
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+
+    /**
+     * set the number of threads to search with
+     * 
+     * @param threadCount
+     *            the number of threads, must be > 0
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+
+    /**
+     * set the weight of the exploration term of UCT. Larger values search
+     * more moves, smaller values search the best moves deeper.
+     * 
+     * @param exploration
+     *            the weight, defaults to the square root of 2
+     */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+
+    /**
+     * set the seed of the random moves, to repeat a search
+     * 
+     * @param seed
+     *            the seed
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+
+    /**
+     * @return the number of iterations of the last search, over all threads
+     */
+    public long getIterations() {
+        return iterations;
+    }
+
+
+    /**
+     * get the statistics of the last search. Only the nodes, which are the
+     * iterations over all threads, and the elapsed time are collected.
+     * 
+     * @return the statistics
+     */
+    public SearchStatistics getLastStatistics() {
+        return statistics;
+    }
+}
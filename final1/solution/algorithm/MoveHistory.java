@@ -0,0 +1,152 @@
+package final1.algorithm;
+
+/**
+ * Dynamic move ordering information collected by the
+ * {@link AlphaBetaAlgorithm} during a search: the killer moves, i.e. the last
+ * two moves that caused a beta cutoff at each ply, and a history table
+ * counting how often each move caused a cutoff, weighted by the remaining
+ * depth. Games implementing {@link OrderedGame} use this to order their moves.
+ * 
+ * Moves are identified by their index, see {@link OrderedGame#getMoveIndex}.
+ * 
+ * @author robin
+ * @version 1
+ */
+public class MoveHistory {
+
+    /** the maximum ply for which killer moves are stored */
+    public static final int MAX_PLY = 128;
+    /** history counters are halved when one reaches this value */
+    private static final int MAX_HISTORY = 1 << 30;
+
+    /** the two killer moves of every ply, -1 if there is none */
+    private final int[][] killers;
+    /** the history counter of every move */
+    private final int[] history;
+    /** the ply of the position the search is currently ordering moves in */
+    private int ply;
+
+
+    /**
+     * initialize an empty history
+     * 
+     * @param moveCount
+     *            the number of different move indices
+     */
+    public MoveHistory(int moveCount) {
+        killers = new int[MAX_PLY][2];
+        history = new int[moveCount];
+        clearKillers();
+    }
+
+
+    /**
+     * set the ply of the position the search currently orders moves in
+     * 
+     * @param ply
+     *            the distance from the root of the search
+     */
+    public void setPly(int ply) {
+        this.ply = ply;
+    }
+
+
+    /**
+     * Check if a move is a killer move in the current ply. Killer moves
+     * should be searched before all other moves except winning ones.
+     * 
+     * @param moveIndex
+     *            the index of the move
+     * @return 2 for the newest killer move, 1 for the older one, 0 if the
+     *         move is no killer move
+     */
+    public int getKillerRank(int moveIndex) {
+        if (ply < MAX_PLY) {
+            if (killers[ply][0] == moveIndex) {
+                return 2;
+            }
+            if (killers[ply][1] == moveIndex) {
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+
+    /**
+     * Get the history counter of a move. A higher counter means the move
+     * caused more cutoffs and should be searched earlier.
+     * 
+     * @param moveIndex
+     *            the index of the move
+     * @return the counter
+     */
+    public int getHistory(int moveIndex) {
+        return history[moveIndex];
+    }
+
+
+    /**
+     * record that a move caused a beta cutoff
+     * 
+     * @param cutoffPly
+     *            the ply of the position
+     * @param moveIndex
+     *            the index of the move
+     * @param depth
+     *            the remaining search depth of the position
+     */
+    public void addCutoff(int cutoffPly, int moveIndex, int depth) {
+        if (cutoffPly < MAX_PLY && killers[cutoffPly][0] != moveIndex) {
+            killers[cutoffPly][1] = killers[cutoffPly][0];
+            killers[cutoffPly][0] = moveIndex;
+        }
+        history[moveIndex] += depth * depth;
+        if (history[moveIndex] >= MAX_HISTORY) {
+            age();
+        }
+    }
+
+
+    /**
+     * prepare for a new search: remove the killer moves, as the plies refer to
+     * a different root now, and halve the history counters, so older results
+     * count less
+     */
+    public void newSearch() {
+        clearKillers();
+        age();
+    }
+
+
+    /**
+     * forget everything, as if no search was run before
+     */
+    public void clear() {
+        clearKillers();
+        for (int i = 0; i < history.length; i++) {
+            history[i] = 0;
+        }
+    }
+
+
+    /**
+     * halve all history counters
+     */
+    private void age() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] /= 2;
+        }
+    }
+
+
+    /**
+     * remove all killer moves
+     */
+    private void clearKillers() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = -1;
+            plyKillers[1] = -1;
+        }
+    }
+}
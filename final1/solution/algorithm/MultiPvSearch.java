@@ -0,0 +1,172 @@
+package final1.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An analysis of all moves of a position. Unlike
+ * {@link AlphaBetaAlgorithm#getBestMove()}, which only proves that one move
+ * is better than the others, it finds the exact score of every move, and the
+ * line of best play after it. Every move is searched with the full window by
+ * one {@link AlphaBetaAlgorithm}, so the searches share the transposition
+ * table and the move history. Positions that the moves transpose into are
+ * only searched once, and the moves searched later are ordered by the
+ * results of the moves before.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public class MultiPvSearch<M extends Move> {
+
+    /** the analysed game */
+    private final Game<M> game;
+    /** the search of the positions after the moves */
+    private final AlphaBetaAlgorithm<Game<M>, M> search;
+
+
+    /**
+     * initialize an analysis
+     * 
+     * @param game
+     *            the game to analyse. Its current position is analysed, and
+     *            it must not be changed while the analysis runs.
+     */
+    public MultiPvSearch(Game<M> game) {
+        this.game = game;
+        search = new AlphaBetaAlgorithm<Game<M>, M>(game);
+    }
+
+
+    /**
+     * Get the settings of the analysis. The maximum depth is the depth of
+     * the analysed position, so the positions after the moves are searched
+     * one ply less deep. The settings of every search apply to the search of
+     * every move, i.e. limits are per move, and in deterministic mode the
+     * searches do not share their results.
+     * 
+     * @return the options
+     */
+    public SearchOptions getOptions() {
+        return search.getOptions();
+    }
+
+
+    /**
+     * @return the time and node budget of the search of every move
+     */
+    public SearchLimits getLimits() {
+        return search.getLimits();
+    }
+
+
+    /**
+     * forget the results of previous analyses, so the next analysis starts
+     * from scratch
+     */
+    public void clearTable() {
+        search.clearTable();
+    }
+
+
+    /**
+     * Analyse the moves of the current position.
+     * 
+     * @param count
+     *            the maximum number of moves to return
+     * @return the best moves, best first. Moves with the same score are
+     *         returned in the order of {@link Game#getValidMoves()}.
+     */
+    public List<AnalyzedMove<M>> analyze(int count) {
+        List<M> moves = new ArrayList<M>(game.getValidMoves());
+        List<AnalyzedMove<M>> result = new ArrayList<AnalyzedMove<M>>();
+        for (M move : moves) {
+            List<M> line = new ArrayList<M>();
+            line.add(move);
+            game.perform(move);
+            int score = -searchReply(line);
+            game.undo();
+            result.add(new AnalyzedMove<M>(move, score, line));
+        }
+        Collections.sort(result, new Comparator<AnalyzedMove<M>>() {
+
+            @Override
+            public int compare(AnalyzedMove<M> a, AnalyzedMove<M> b) {
+                return Integer.compare(b.getScore(), a.getScore());
+            }
+        });
+        return result.subList(0, Math.min(count, result.size()));
+    }
+
+
+    /**
+     * search the position after a move and complete its line
+     * 
+     * @param line
+     *            the line so far, the best reply and the line after it are
+     *            added
+     * @return the score of the position from the view of the player who has
+     *         the turn in it, with the distance of a win counted from the
+     *         analysed position
+     */
+    private int searchReply(List<M> line) {
+        int depth = getOptions().getMaxDepth() - 1;
+        if (depth <= 0 || game.getState() != GameState.PLAYING) {
+            return Score.atPly(game.evaluateState(), 1);
+        }
+        getOptions().setMaxDepth(depth);
+        try {
+            line.add(search.getBestMove());
+        } catch (GameException e) {
+            // the game is running, so there is a move
+            throw new IllegalStateException(e);
+        } finally {
+            getOptions().setMaxDepth(depth + 1);
+        }
+        game.perform(line.get(1));
+        followTable(line, depth - 1);
+        game.undo();
+        return Score.fromTable(search.getLastStatistics().getScore(), 1);
+    }
+
+
+    /**
+     * Extend a line by the best moves stored in the transposition table.
+     * The moves are done in the game and undone again.
+     * 
+     * @param line
+     *            the line, which ends in the current position
+     * @param length
+     *            the maximum number of moves to add
+     */
+    private void followTable(List<M> line, int length) {
+        TranspositionTable<M> table = search.getTable();
+        if (length <= 0 || table == null
+                || game.getState() != GameState.PLAYING) {
+            return;
+        }
+        HashedGame<M> hashedGame = (HashedGame<M>) game;
+        M move;
+        if (game instanceof SymmetricGame) {
+            SymmetricGame<M> symmetricGame = (SymmetricGame<M>) game;
+            long hash = symmetricGame.getCanonicalHash();
+            move = table.probe(hash) != 0 ? table.getMove(hash) : null;
+            if (move != null && symmetricGame.isTransformed()) {
+                move = symmetricGame.transformMove(move);
+            }
+        } else {
+            long hash = hashedGame.getHash();
+            move = table.probe(hash) != 0 ? table.getMove(hash) : null;
+        }
+        if (move != null && game.getValidMoves().contains(move)) {
+            line.add(move);
+            game.perform(move);
+            followTable(line, length - 1);
+            game.undo();
+        }
+    }
+}
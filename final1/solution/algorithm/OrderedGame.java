@@ -0,0 +1,45 @@
+package final1.algorithm;
+
+/**
+ * A game whose move ordering can use the killer moves and history counters
+ * collected by the {@link AlphaBetaAlgorithm}. The game combines the scores
+ * of the {@link MoveHistory} with its own static ordering in
+ * {@link #getValidMoves()}.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public interface OrderedGame<M extends Move> extends Game<M> {
+
+    /**
+     * Returns a small number identifying a move, used as index into the
+     * history table. Moves that are likely to have similar effects in
+     * different positions should have the same index.
+     * 
+     * @param move
+     *            the move
+     * @return the index, between 0 and {@link #getMoveIndexCount()} - 1
+     */
+    public int getMoveIndex(M move);
+
+
+    /**
+     * Returns the number of different move indices.
+     * 
+     * @return the number of move indices
+     */
+    public int getMoveIndexCount();
+
+
+    /**
+     * Sets the history to order moves with. Set by the search before every
+     * search, as multiple searches may act in the same game.
+     * 
+     * @param history
+     *            the history, null to use the static ordering only
+     */
+    public void setMoveHistory(MoveHistory history);
+}
@@ -0,0 +1,73 @@
+package final1.algorithm;
+
+/**
+ * A search that runs in the background while the opponent thinks about their
+ * move. It searches a position the player expects to get, with iterative
+ * deepening up to the maximum depth, and shares the transposition table with
+ * the player's own search. If the position is reached, the result can be
+ * used directly. Otherwise, the search still filled the table with results
+ * the player's search can use.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public class PonderSearch<M extends Move> {
+
+    /** the search running in the background */
+    private final AlphaBetaAlgorithm<Game<M>, M> search;
+    /** the thread running the search */
+    private final Thread thread;
+    /** the best move of the last completed iteration */
+    private M result;
+
+
+    /**
+     * start searching in the background
+     * 
+     * @param position
+     *            the position to search. It must not be used by anyone else
+     *            while the search runs, so it is usually a copy of the game.
+     * @param table
+     *            the transposition table of the player
+     * @param maxDepth
+     *            the maximum depth to search
+     */
+    public PonderSearch(Game<M> position, TranspositionTable<M> table,
+            int maxDepth) {
+        search = new AlphaBetaAlgorithm<Game<M>, M>(position, table);
+        search.getOptions().setMaxDepth(maxDepth);
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                result = search.iterate(1);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * stop the search and wait for its thread to end
+     * 
+     * @return the best move, if the search was completed up to the maximum
+     *         depth before it was stopped, null otherwise
+     */
+    public M finish() {
+        search.stop();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (search.getLimits().isExceeded()) {
+            return null;
+        }
+        return result;
+    }
+}
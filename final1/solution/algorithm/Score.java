@@ -0,0 +1,105 @@
+package final1.algorithm;
+
+/**
+ * Constants and helpers for the integer scores returned by
+ * {@link Game#evaluateState()}.
+ * 
+ * A heuristic score must lie strictly between {@link #MIN_HEURISTIC} and
+ * {@link #MAX_HEURISTIC}. A won state is scored {@link #WIN}, a lost state
+ * -{@link #WIN}. The search replaces these by scores that encode the
+ * distance to the end of the game, so a faster win is preferred over a
+ * slower one and a slower loss over a faster one.
+ * 
+ * @author robin
+ * @version 1
+ */
+public final class Score {
+
+    /** the score of a won state */
+    public static final int WIN = 1000000;
+    /** larger than every score, used as the initial search window */
+    public static final int INFINITY = WIN + 1;
+    /** the maximum number of plies a win can be away from the root */
+    public static final int MAX_MATE_PLY = 1000;
+    /** the largest heuristic score */
+    public static final int MAX_HEURISTIC = WIN - MAX_MATE_PLY - 1;
+    /** the smallest heuristic score */
+    public static final int MIN_HEURISTIC = -MAX_HEURISTIC;
+
+
+    private Score() {
+
+    }
+
+
+    /**
+     * convert the score of a state into a score that prefers faster wins and
+     * slower losses
+     * 
+     * @param score
+     *            the score returned by {@link Game#evaluateState()}
+     * @param ply
+     *            the distance of the state from the root of the search
+     * @return the score relative to the root
+     */
+    public static int atPly(int score, int ply) {
+        if (score >= WIN) {
+            return WIN - ply;
+        } else if (score <= -WIN) {
+            return -WIN + ply;
+        }
+        return score;
+    }
+
+
+    /**
+     * check if a score is a won or lost state
+     * 
+     * @param score
+     *            the score
+     * @return true if the score encodes the end of the game
+     */
+    public static boolean isDecisive(int score) {
+        return score > MAX_HEURISTIC || score < MIN_HEURISTIC;
+    }
+
+
+    /**
+     * Convert a score relative to the root into a score relative to the
+     * current state, so it can be stored in a {@link TranspositionTable} and
+     * found again in a different distance from the root.
+     * 
+     * @param score
+     *            the score relative to the root
+     * @param ply
+     *            the distance of the current state from the root
+     * @return the score relative to the current state
+     */
+    public static int toTable(int score, int ply) {
+        if (score > MAX_HEURISTIC) {
+            return score + ply;
+        } else if (score < MIN_HEURISTIC) {
+            return score - ply;
+        }
+        return score;
+    }
+
+
+    /**
+     * the inverse of {@link #toTable(int, int)}
+     * 
+     * @param score
+     *            the score relative to the current state
+     * @param ply
+     *            the distance of the current state from the root
+     * @return the score relative to the root
+     */
+    public static int fromTable(int score, int ply) {
+        if (score > MAX_HEURISTIC) {
+            return score - ply;
+        } else if (score < MIN_HEURISTIC) {
+            return score + ply;
+        }
+        return score;
+    }
+}
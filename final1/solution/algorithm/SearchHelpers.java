@@ -0,0 +1,80 @@
+package final1.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The helper threads of a parallel search. Every helper searches its own copy
+ * of the game and shares the transposition table with the main search, so the
+ * helpers fill the table with results the main search can use (Lazy SMP).
+ * Half of the helpers start one iteration deeper, so the threads do not all
+ * search the same positions at once. The results of the helpers themselves
+ * are discarded.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public class SearchHelpers<M extends Move> {
+
+    /** the searches of the helpers */
+    private final List<AlphaBetaAlgorithm<Game<M>, M>> helpers;
+    /** the threads running the helpers */
+    private final List<Thread> threads;
+
+
+    /**
+     * start the helper threads
+     * 
+     * @param game
+     *            the game to search, which is copied for every helper
+     * @param table
+     *            the transposition table of the main search
+     * @param options
+     *            the settings of the main search, which the helpers search
+     *            with as well
+     * @param count
+     *            the number of helpers
+     */
+    public SearchHelpers(CopyableGame<M> game, TranspositionTable<M> table,
+            SearchOptions options, int count) {
+        helpers = new ArrayList<AlphaBetaAlgorithm<Game<M>, M>>(count);
+        threads = new ArrayList<Thread>(count);
+        for (int i = 1; i <= count; i++) {
+            final AlphaBetaAlgorithm<Game<M>, M> helper = new AlphaBetaAlgorithm<Game<M>, M>(
+                    game.copy(), table);
+            helper.getOptions().copyFrom(options);
+            final int firstDepth = 1 + i % 2;
+            Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    helper.iterate(firstDepth);
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            helpers.add(helper);
+            threads.add(thread);
+        }
+    }
+
+
+    /**
+     * stop the helpers and wait for their threads to end
+     */
+    public void stop() {
+        for (AlphaBetaAlgorithm<Game<M>, M> helper : helpers) {
+            helper.stop();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package final1.algorithm;
+
+/**
+ * The time and node budget of a search, and the bookkeeping to check it. The
+ * search counts every node it visits here and stops as soon as the budget is
+ * used up or another thread requested it to stop.
+ * 
+ * @author robin
+ * @version 1
+ */
+public class SearchLimits {
+
+    /**
+     * the number of nodes between two checks of the clock when the search
+     * has a time limit, minus one
+     */
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    /** the maximum time per search in nanoseconds, 0 for no limit */
+    private long timeLimit;
+    /** the maximum number of nodes per search, 0 for no limit */
+    private long nodeLimit;
+    /** the number of nodes visited in the current search */
+    private long nodes;
+    /** the time at which the current search has to stop */
+    private long deadline;
+    /** set when the budget ran out or the search was stopped */
+    private boolean exceeded;
+    /** set by another thread to stop the current search */
+    private volatile boolean stopped;
+    /** if the current search checks the time limit */
+    private boolean clockEnabled;
+
+
+    /** initialize limits without a time or node limit */
+    public SearchLimits() {
+
+    }
+
+
+    /**
+     * limit the time a search may take. The limit is checked every few
+     * thousand nodes, so it may be exceeded slightly.
+     * 
+     * @param millis
+     *            the time limit in milliseconds, 0 for no limit
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimit = millis * 1000000;
+    }
+
+
+    /**
+     * @return the time limit in milliseconds, 0 for no limit
+     */
+    public long getTimeLimit() {
+        return timeLimit / 1000000;
+    }
+
+
+    /**
+     * limit the number of nodes a search may visit
+     * 
+     * @param nodeLimit
+     *            the maximum number of nodes, 0 for no limit
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+
+    /**
+     * @return true if there is a time or node limit
+     */
+    public boolean hasBudget() {
+        return timeLimit > 0 || nodeLimit > 0;
+    }
+
+
+    /**
+     * start a new search with the full budget
+     */
+    public void start() {
+        start(true);
+    }
+
+
+    /**
+     * Start a new search with the full budget. A search without the clock is
+     * only limited by the node limit, which is checked on every node, so it
+     * visits the same nodes on every machine.
+     * 
+     * @param useClock
+     *            false to ignore the time limit in this search
+     */
+    public void start(boolean useClock) {
+        clockEnabled = useClock && timeLimit > 0;
+        nodes = 0;
+        exceeded = false;
+        stopped = false;
+        deadline = System.nanoTime() + timeLimit;
+    }
+
+
+    /**
+     * Count a visited node and check if the search has to stop.
+     * 
+     * @param mayAbort
+     *            false if the budget must not stop the search yet, as it has
+     *            no result so far. A stop request ends the search anyway.
+     * @return true if the search has to stop
+     */
+    public boolean countNode(boolean mayAbort) {
+        nodes++;
+        if (!exceeded) {
+            exceeded = stopped || mayAbort
+                    && (nodeLimit > 0 && nodes > nodeLimit || clockEnabled
+                            && (nodes & CLOCK_CHECK_MASK) == 0
+                            && System.nanoTime() - deadline > 0);
+        }
+        return exceeded;
+    }
+
+
+    /**
+     * @return true if the current search has to stop
+     */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+
+    /**
+     * Stop the current search as soon as possible. May be called from any
+     * thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+
+    /**
+     * @return the number of nodes visited in the current search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
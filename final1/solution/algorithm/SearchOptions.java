@@ -0,0 +1,226 @@
+package final1.algorithm;
+
+/**
+ * The settings of an {@link AlphaBetaAlgorithm}, which can be changed between
+ * searches.
+ * 
+ * @author robin
+ * @version 1
+ */
+public class SearchOptions {
+
+    /** the maximum search depth */
+    private int maxDepth = AlphaBetaAlgorithm.SEARCH_DEPTH;
+    /** the number of threads searching in parallel */
+    private int threadCount = 1;
+    /** if the moves after the first are searched with a null window */
+    private boolean principalVariation = true;
+    /** the size of the aspiration window at the root, 0 for none */
+    private int aspirationWindow;
+    /** if every search starts from scratch, see {@link #setDeterministic} */
+    private boolean deterministic;
+    /** if the root is searched by MTD(f) instead of one window */
+    private boolean mtdf;
+    /** if late quiet moves are searched with a reduced depth */
+    private boolean lateMoveReductions;
+    /** if forced replies are searched one ply deeper */
+    private boolean forcedMoveExtensions;
+
+
+    /** initialize the default options */
+    public SearchOptions() {
+
+    }
+
+
+    /**
+     * set the maximum search depth. Defaults to
+     * {@link AlphaBetaAlgorithm#SEARCH_DEPTH}.
+     * 
+     * @param maxDepth
+     *            the maximum depth, must be > 0
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+
+    /**
+     * @return the maximum search depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+
+    /**
+     * set the number of threads to search with. Parallel search needs a game
+     * that implements both {@link HashedGame} and {@link CopyableGame}, other
+     * games are always searched by one thread.
+     * 
+     * @param threadCount
+     *            the number of threads, must be > 0
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+
+    /**
+     * @return the number of threads to search with
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+
+    /**
+     * enable or disable the principal variation search, which searches all
+     * moves but the first with a null window. Enabled by default.
+     * 
+     * @param principalVariation
+     *            true to enable
+     */
+    public void setPrincipalVariationSearch(boolean principalVariation) {
+        this.principalVariation = principalVariation;
+    }
+
+
+    /**
+     * @return true if the principal variation search is enabled
+     */
+    public boolean isPrincipalVariationSearch() {
+        return principalVariation;
+    }
+
+
+    /**
+     * set the size of the aspiration window of iterative deepening. Each
+     * iteration first searches for a score within this distance of the score
+     * of the previous iteration. Disabled by default, as it only pays off if
+     * the scores of successive iterations are close to each other.
+     * 
+     * @param aspirationWindow
+     *            the distance, 0 to always search with the full window
+     */
+    public void setAspirationWindow(int aspirationWindow) {
+        this.aspirationWindow = aspirationWindow;
+    }
+
+
+    /**
+     * @return the size of the aspiration window, 0 for none
+     */
+    public int getAspirationWindow() {
+        return aspirationWindow;
+    }
+
+
+    /**
+     * Make searches reproducible. Every search starts with an empty
+     * transposition table and move history, is run by one thread and ignores
+     * the time limit of its {@link SearchLimits}, so it is only limited by
+     * depth and nodes. Two searches of the same position with the same
+     * options and node limit then find the same move and collect the same
+     * {@link SearchStatistics}, except for the elapsed time, on any machine.
+     * 
+     * @param deterministic
+     *            true to make searches reproducible
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+
+    /**
+     * @return true if searches are reproducible
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+
+    /**
+     * Search the root by MTD(f), a sequence of null window searches that
+     * converge on the score, instead of one search with the full or
+     * aspiration window. The null window searches prune more, but search the
+     * same tree repeatedly, so MTD(f) only pays off with a transposition
+     * table, i.e. for a {@link HashedGame}. The aspiration window is ignored.
+     * Disabled by default.
+     * 
+     * @param mtdf
+     *            true to search the root by MTD(f)
+     */
+    public void setMtdf(boolean mtdf) {
+        this.mtdf = mtdf;
+    }
+
+
+    /**
+     * @return true if the root is searched by MTD(f)
+     */
+    public boolean isMtdf() {
+        return mtdf;
+    }
+
+
+    /**
+     * Search quiet moves that are ordered late with a reduced depth, see
+     * {@link SelectiveGame#isQuietMove(Move)}. A reduced move that turns out
+     * to be better than the moves before is searched again with the full
+     * depth. Only applies to a {@link SelectiveGame}. Disabled by default.
+     * 
+     * @param lateMoveReductions
+     *            true to reduce late quiet moves
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+
+    /**
+     * @return true if late quiet moves are reduced
+     */
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+
+    /**
+     * Search positions in which the player to move is forced to answer a
+     * threat one ply deeper, see {@link SelectiveGame#isForcedPosition()}.
+     * Only applies to a {@link SelectiveGame}. Disabled by default.
+     * 
+     * @param forcedMoveExtensions
+     *            true to extend forced replies
+     */
+    public void setForcedMoveExtensions(boolean forcedMoveExtensions) {
+        this.forcedMoveExtensions = forcedMoveExtensions;
+    }
+
+
+    /**
+     * @return true if forced replies are extended
+     */
+    public boolean isForcedMoveExtensions() {
+        return forcedMoveExtensions;
+    }
+
+
+    /**
+     * change all settings to those of other options
+     * 
+     * @param other
+     *            the options to copy
+     */
+    void copyFrom(SearchOptions other) {
+        maxDepth = other.maxDepth;
+        threadCount = other.threadCount;
+        principalVariation = other.principalVariation;
+        aspirationWindow = other.aspirationWindow;
+        deterministic = other.deterministic;
+        mtdf = other.mtdf;
+        lateMoveReductions = other.lateMoveReductions;
+        forcedMoveExtensions = other.forcedMoveExtensions;
+    }
+}
@@ -0,0 +1,282 @@
+package final1.algorithm;
+
+/**
+ * Statistics of one search, collected while searching. They only cover the
+ * nodes of the thread that returns the result, not those of the helper
+ * threads of a parallel search.
+ * 
+ * @author robin
+ * @version 1
+ */
+public class SearchStatistics {
+
+    /**
+     * the number of move indices beta cutoffs are counted for. Cutoffs at
+     * later moves are counted as cutoffs at the last index.
+     */
+    public static final int CUTOFF_INDICES = 8;
+
+    /** the number of nodes visited */
+    private long nodes;
+    /** the number of positions rated by {@link Game#evaluateState()} */
+    private long leafEvaluations;
+    /** the number of beta cutoffs by the index of the move causing them */
+    private final long[] cutoffs = new long[CUTOFF_INDICES];
+    /** the number of lookups in the transposition table */
+    private long tableProbes;
+    /** the number of lookups that found the position */
+    private long tableHits;
+    /** the depth of the last completed iteration */
+    private int depth;
+    /** the score of the root position in the last completed iteration */
+    private int score;
+    /** the nodes visited until the end of the last completed iteration */
+    private long completedNodes;
+    /** the nodes visited by the last completed iteration */
+    private long iterationNodes;
+    /** the nodes visited by the iteration before, 0 if there was none */
+    private long previousIterationNodes;
+    /** the time the search started at */
+    private long startTime;
+    /** the duration of the search in nanoseconds */
+    private long elapsedNanos;
+
+
+    /** initialize empty statistics */
+    public SearchStatistics() {
+
+    }
+
+
+    /**
+     * reset the statistics at the start of a search
+     */
+    void start() {
+        nodes = 0;
+        leafEvaluations = 0;
+        for (int i = 0; i < CUTOFF_INDICES; i++) {
+            cutoffs[i] = 0;
+        }
+        tableProbes = 0;
+        tableHits = 0;
+        depth = 0;
+        score = 0;
+        completedNodes = 0;
+        iterationNodes = 0;
+        previousIterationNodes = 0;
+        elapsedNanos = 0;
+        startTime = System.nanoTime();
+    }
+
+
+    /**
+     * count a position rated by {@link Game#evaluateState()}
+     */
+    void countLeaf() {
+        leafEvaluations++;
+    }
+
+
+    /**
+     * count a lookup in the transposition table
+     * 
+     * @param hit
+     *            true if the position was found
+     */
+    void countProbe(boolean hit) {
+        tableProbes++;
+        if (hit) {
+            tableHits++;
+        }
+    }
+
+
+    /**
+     * count a beta cutoff
+     * 
+     * @param index
+     *            the index of the move that caused it in the searched order
+     */
+    void countCutoff(int index) {
+        cutoffs[Math.min(index, CUTOFF_INDICES - 1)]++;
+    }
+
+
+    /**
+     * record a completed iteration of iterative deepening
+     * 
+     * @param completedDepth
+     *            the depth of the iteration
+     * @param visitedNodes
+     *            the nodes visited since the start of the search
+     * @param rootScore
+     *            the score of the root position
+     */
+    void completeIteration(int completedDepth, long visitedNodes,
+            int rootScore) {
+        depth = completedDepth;
+        score = rootScore;
+        previousIterationNodes = iterationNodes;
+        iterationNodes = visitedNodes - completedNodes;
+        completedNodes = visitedNodes;
+    }
+
+
+    /**
+     * record the end of the search
+     * 
+     * @param visitedNodes
+     *            the nodes visited by the whole search
+     */
+    void finish(long visitedNodes) {
+        nodes = visitedNodes;
+        elapsedNanos = System.nanoTime() - startTime;
+    }
+
+
+    /**
+     * @return the number of nodes visited
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+
+    /**
+     * @return the number of positions rated by {@link Game#evaluateState()}
+     */
+    public long getLeafEvaluations() {
+        return leafEvaluations;
+    }
+
+
+    /**
+     * get the number of beta cutoffs caused by the move with the given index
+     * in the searched order. A good move ordering causes most cutoffs at the
+     * first move.
+     * 
+     * @param index
+     *            the index, < {@link #CUTOFF_INDICES}
+     * @return the number of cutoffs
+     */
+    public long getCutoffs(int index) {
+        return cutoffs[index];
+    }
+
+
+    /**
+     * @return the total number of beta cutoffs
+     */
+    public long getBetaCutoffs() {
+        long sum = 0;
+        for (int i = 0; i < CUTOFF_INDICES; i++) {
+            sum += cutoffs[i];
+        }
+        return sum;
+    }
+
+
+    /**
+     * @return the number of lookups in the transposition table, 0 if the game
+     *         is not hashed
+     */
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+
+    /**
+     * @return the number of lookups that found the position
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+
+    /**
+     * @return the depth of the last completed iteration
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+
+    /**
+     * get the score of the root position from the view of the player who has
+     * the turn, as found by the last completed iteration. See {@link Score}
+     * for the meaning of the values.
+     * 
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+
+    /**
+     * Get the effective branching factor, i.e. the nodes of the last
+     * iteration divided by the nodes of the iteration before. If only one
+     * iteration was searched, it is estimated as the depth-th root of the
+     * nodes.
+     * 
+     * @return the effective branching factor, 0 if no iteration completed
+     */
+    public double getBranchingFactor() {
+        if (depth == 0) {
+            return 0;
+        }
+        if (previousIterationNodes > 0) {
+            return (double) iterationNodes / previousIterationNodes;
+        }
+        return Math.pow(iterationNodes, 1d / depth);
+    }
+
+
+    /**
+     * @return the duration of the search in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+
+    /**
+     * @return the visited nodes per second
+     */
+    public long getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : (long) (nodes * 1E9 / elapsedNanos);
+    }
+
+
+    /**
+     * summarize the statistics in one line
+     * 
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        long betaCutoffs = getBetaCutoffs();
+        return "depth " + depth + ", score " + score + ", nodes " + nodes
+                + " ("
+                + getNodesPerSecond() / 1000 + " kN/s), leaves "
+                + leafEvaluations + ", ebf "
+                + Math.round(getBranchingFactor() * 100) / 100d
+                + ", first move cutoffs " + percent(cutoffs[0], betaCutoffs)
+                + ", table hits " + percent(tableHits, tableProbes) + ", "
+                + elapsedNanos / 1000000 + " ms";
+    }
+
+
+    /**
+     * format a ratio as percentage
+     * 
+     * @param part
+     *            the part
+     * @param whole
+     *            the whole
+     * @return the percentage with a % sign
+     */
+    private static String percent(long part, long whole) {
+        return (whole == 0 ? 0 : part * 100 / whole) + "%";
+    }
+}
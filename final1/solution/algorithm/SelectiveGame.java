@@ -0,0 +1,39 @@
+package final1.algorithm;
+
+/**
+ * A game that tells the {@link AlphaBetaAlgorithm} which lines matter, so it
+ * can search selectively. Quiet moves that are ordered late are searched with
+ * a reduced depth, and positions in which the player to move is forced to
+ * answer a threat are searched one ply deeper. See
+ * {@link SearchOptions#setLateMoveReductions(boolean)} and
+ * {@link SearchOptions#setForcedMoveExtensions(boolean)}.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public interface SelectiveGame<M extends Move> extends Game<M> {
+
+    /**
+     * Check if a move of the player who has the turn is quiet, i.e. it
+     * neither creates nor answers a threat, so it is unlikely to change the
+     * value of the position much.
+     * 
+     * @param move
+     *            a valid move in the current position
+     * @return true if the move is quiet
+     */
+    public boolean isQuietMove(M move);
+
+
+    /**
+     * Check if the player who has the turn has only one move that does not
+     * lose at once, e.g. because an immediate threat of the opponent has to be
+     * blocked.
+     * 
+     * @return true if the reply is forced
+     */
+    public boolean isForcedPosition();
+}
@@ -0,0 +1,78 @@
+package final1.algorithm;
+
+/**
+ * The rules of the selective search of an {@link AlphaBetaAlgorithm}, i.e.
+ * which moves are searched with a reduced depth and which positions are
+ * searched deeper. Only a {@link SelectiveGame} is searched selectively.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+class SelectiveSearch<M extends Move> {
+
+    /** the number of moves of a position that are never reduced */
+    static final int FULL_DEPTH_MOVES = 3;
+    /** the minimum remaining depth at which moves are reduced */
+    static final int REDUCTION_DEPTH = 3;
+
+    /** the game as a {@link SelectiveGame}, null if it is not one */
+    private final SelectiveGame<M> game;
+    /** the settings of the search */
+    private final SearchOptions options;
+
+
+    /**
+     * initialize the rules for a game
+     * 
+     * @param game
+     *            the searched game
+     * @param options
+     *            the settings of the search
+     */
+    @SuppressWarnings("unchecked")
+    SelectiveSearch(Game<M> game, SearchOptions options) {
+        this.game = game instanceof SelectiveGame ? (SelectiveGame<M>) game
+                : null;
+        this.options = options;
+    }
+
+
+    /**
+     * Check if a move is searched with a reduced depth first. The move is
+     * searched again with the full depth if the reduced search shows that it
+     * is better than the moves before.
+     * 
+     * @param index
+     *            the index of the move in the searched order
+     * @param move
+     *            the move, not done yet
+     * @param depth
+     *            the remaining depth of the position before the move
+     * @return true if the move is reduced
+     */
+    boolean isReduced(int index, M move, int depth) {
+        return game != null && options.isLateMoveReductions()
+                && index >= FULL_DEPTH_MOVES && depth >= REDUCTION_DEPTH
+                && game.isQuietMove(move);
+    }
+
+
+    /**
+     * Check if the current position is searched one ply deeper. Extensions
+     * end at twice the depth of the iteration, so a long sequence of forced
+     * moves can not blow up the search.
+     * 
+     * @param ply
+     *            the distance of the position from the root
+     * @param rootDepth
+     *            the depth of the iteration
+     * @return true if the position is extended
+     */
+    boolean isExtended(int ply, int rootDepth) {
+        return game != null && options.isForcedMoveExtensions()
+                && ply < 2 * rootDepth && game.isForcedPosition();
+    }
+}
@@ -0,0 +1,49 @@
+package final1.algorithm;
+
+/**
+ * A game whose positions have symmetric counterparts with the same value,
+ * e.g. the mirror image of a position. All positions of a symmetry class
+ * share one canonical hash, so the {@link AlphaBetaAlgorithm} stores only one
+ * {@link TranspositionTable} entry for them. Moves stored with that entry are
+ * transformed into the canonical orientation of the position, and back when
+ * they are looked up.
+ * 
+ * @author robin
+ * @version 1
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public interface SymmetricGame<M extends Move> extends HashedGame<M> {
+
+    /**
+     * Returns the hash of the canonical orientation of the current position.
+     * All symmetric positions have the same canonical hash. Like
+     * {@link #getHash()}, it should be updated incrementally.
+     * 
+     * @return the canonical hash
+     */
+    public long getCanonicalHash();
+
+
+    /**
+     * Check if the current position differs from its canonical orientation,
+     * so moves have to be transformed with {@link #transformMove(Move)}.
+     * 
+     * @return true if the position is not in its canonical orientation
+     */
+    public boolean isTransformed();
+
+
+    /**
+     * Transform a move of the current position into the move of the
+     * canonical orientation, or the other way round, so the transformation
+     * must be its own inverse. Only called if {@link #isTransformed()} is
+     * true.
+     * 
+     * @param move
+     *            the move
+     * @return the transformed move
+     */
+    public M transformMove(M move);
+}
@@ -0,0 +1,209 @@
+package final1.algorithm;
+
+/**
+ * A fixed size hash table that remembers the results of previous searches
+ * indexed by the hash of the position, see {@link HashedGame#getHash()}.
+ * For a {@link SymmetricGame}, the canonical hash is used, so symmetric
+ * positions share one entry.
+ * 
+ * Every entry is packed into one data word holding the search depth, the
+ * value and the kind of bound the value represents. The key is stored XORed
+ * with the data, so a slot that was overwritten concurrently by another
+ * thread simply does not match any more. This allows multiple search threads
+ * to share one table without locking. The best move of an entry is kept
+ * separately and may be outdated, so it must only be used as a hint for the
+ * move ordering.
+ * 
+ * @author robin
+ * @version 4
+ * 
+ * @param <M>
+ *            The type of move the game uses.
+ */
+public class TranspositionTable<M extends Move> {
+
+    /** the stored value is the exact value of the position */
+    public static final int EXACT = 0;
+    /** the stored value is a lower bound, the search failed high */
+    public static final int LOWER_BOUND = 1;
+    /** the stored value is an upper bound, the search failed low */
+    public static final int UPPER_BOUND = 2;
+
+    /** the position of the depth in the data word */
+    private static final int DEPTH_SHIFT = 32;
+    /** the position of the bound type in the data word */
+    private static final int BOUND_SHIFT = 40;
+    /** set in every data word, so a valid entry is never 0 */
+    private static final long VALID = 1L << 42;
+
+    /** the hash keys of the stored positions, XORed with the data */
+    private final long[] keys;
+    /** the stored data words */
+    private final long[] data;
+    /** the best moves, null when unknown */
+    private final Object[] moves;
+    /** used to map a hash to a slot */
+    private final int indexMask;
+
+
+    /**
+     * initialize a new, empty table
+     * 
+     * @param sizeBits
+     *            the table will have 2^sizeBits slots
+     */
+    public TranspositionTable(int sizeBits) {
+        int size = 1 << sizeBits;
+        keys = new long[size];
+        data = new long[size];
+        moves = new Object[size];
+        indexMask = size - 1;
+    }
+
+
+    /**
+     * look up a position
+     * 
+     * @param key
+     *            the hash of the position
+     * @return the data word of the entry, 0 if the position is not in the
+     *         table. Use {@link #depthOf(long)}, {@link #valueOf(long)} and
+     *         {@link #boundOf(long)} to read it.
+     */
+    public long probe(long key) {
+        int slot = index(key);
+        long entry = data[slot];
+        if ((keys[slot] ^ entry) == key) {
+            return entry;
+        }
+        return 0;
+    }
+
+
+    /**
+     * store the result of a search. An entry of the same position is only
+     * replaced if the new search was at least as deep, entries of other
+     * positions are always replaced.
+     * 
+     * @param key
+     *            the hash of the position
+     * @param depth
+     *            the remaining search depth
+     * @param value
+     *            the value found by the search, relative to the stored
+     *            position, see {@link Score#toTable(int, int)}
+     * @param bound
+     *            the kind of bound the value is
+     * @param move
+     *            the best move, may be null
+     */
+    public void store(long key, int depth, int value, int bound, M move) {
+        int slot = index(key);
+        long old = data[slot];
+        if ((keys[slot] ^ old) == key && depthOf(old) > depth) {
+            return;
+        }
+        long entry = VALID | (long) bound << BOUND_SHIFT
+                | (long) depth << DEPTH_SHIFT
+                | value & 0xFFFFFFFFL;
+        data[slot] = entry;
+        keys[slot] = key ^ entry;
+        moves[slot] = move;
+    }
+
+
+    /**
+     * get the best move stored for a position
+     * 
+     * @param key
+     *            the hash of the position
+     * @return the move, null if unknown
+     */
+    @SuppressWarnings("unchecked")
+    public M getMove(long key) {
+        return (M) moves[index(key)];
+    }
+
+
+    /**
+     * remove all entries. Must not be called while the table is in use.
+     */
+    public void clear() {
+        for (int i = 0; i < data.length; i++) {
+            keys[i] = 0;
+            data[i] = 0;
+            moves[i] = null;
+        }
+    }
+
+
+    /**
+     * @param entry
+     *            a data word returned by {@link #probe(long)}
+     * @return the remaining search depth of the entry
+     */
+    public static int depthOf(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+
+    /**
+     * @param entry
+     *            a data word returned by {@link #probe(long)}
+     * @return the value of the entry
+     */
+    public static int valueOf(long entry) {
+        return (int) entry;
+    }
+
+
+    /**
+     * @param entry
+     *            a data word returned by {@link #probe(long)}
+     * @return the bound type of the value
+     */
+    public static int boundOf(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+
+    /**
+     * check if an entry of the table allows to return its value without
+     * searching the position
+     * 
+     * @param entry
+     *            a data word returned by {@link #probe(long)}
+     * @param value
+     *            the value of the entry, converted by
+     *            {@link Score#fromTable(int, int)}
+     * @param alpha
+     *            the lower bound of the search window
+     * @param beta
+     *            the upper bound of the search window
+     * @return true if the value can be returned
+     */
+    public static boolean isCutoff(long entry, int value, int alpha,
+            int beta) {
+        switch (boundOf(entry)) {
+            case LOWER_BOUND:
+                return value >= beta;
+            case UPPER_BOUND:
+                return value <= alpha;
+            default:
+                return true;
+        }
+    }
+
+
+    /**
+     * map a hash to a slot, folding the upper half of the hash into the
+     * lower one
+     * 
+     * @param key
+     *            the hash
+     * @return the slot index
+     */
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & indexMask;
+    }
+}
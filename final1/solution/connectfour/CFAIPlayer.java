@@ -3,7 +3,12 @@ package final1.connectfour;
 import final1.Terminal;
 import final1.algorithm.AlphaBetaAlgorithm;
 import final1.algorithm.GameException;
+import final1.algorithm.GameState;
+import final1.algorithm.MonteCarloTreeSearch;
 import final1.algorithm.Player;
+import final1.algorithm.PonderSearch;
+import final1.algorithm.SearchStatistics;
+import final1.algorithm.TranspositionTable;
 
 /**
  * an AI player for the Connect Four game using {@link AlphaBetaAlgorithm}
@@ -15,7 +20,37 @@ import final1.algorithm.Player;
 public class CFAIPlayer extends AlphaBetaAlgorithm<CFGame, CFMove> implements
         Player<CFMove> {
 
+    /**
+     * the default number of empty cells below which positions are solved
+     * exactly instead of searched heuristically
+     */
+    public static final int ENDGAME_CELLS = 22;
+
     private final int id;
+    /** the opening book to look up positions in, null if there is none */
+    private CFOpeningBook book;
+    /** positions with at most this many empty cells are solved exactly */
+    private int endgameCells = ENDGAME_CELLS;
+    /** the solver for the endgame, created when it is first needed */
+    private CFEndgameSolver solver;
+    /** if the statistics of every search are printed */
+    private boolean logStatistics;
+    /** if the player searches while the opponent thinks */
+    private boolean pondering;
+    /** the search running while the opponent thinks, null if there is none */
+    private PonderSearch<CFMove> ponder;
+    /** the hash of the position {@link #ponder} searches */
+    private long ponderHash;
+    /** if the last move was found by {@link #getBestMove()} */
+    private boolean moveSearched;
+    /** the search used instead of the alpha beta search, null for none */
+    private MonteCarloTreeSearch<CFMove> monteCarlo;
+    /** the iterations of the Monte Carlo tree search, 0 for no limit */
+    private long monteCarloIterations;
+    /** the search for forced wins by threats */
+    private final CFThreatSpaceSearch threatSearch;
+    /** if forced wins are searched by {@link #threatSearch} */
+    private boolean threatSearchEnabled;
 
 
     /**
@@ -29,22 +64,281 @@ public class CFAIPlayer extends AlphaBetaAlgorithm<CFGame, CFMove> implements
     public CFAIPlayer(CFGame game, int id) {
         super(game);
         this.id = id;
+        threatSearch = new CFThreatSpaceSearch();
+        threatSearchEnabled = true;
+    }
+
+
+    /**
+     * print the {@link #getLastStatistics() statistics} of every search after
+     * the move
+     * 
+     * @param logStatistics
+     *            true to print them
+     */
+    public void setLogStatistics(boolean logStatistics) {
+        this.logStatistics = logStatistics;
+    }
+
+
+    /**
+     * Search while the opponent thinks about their move. After every move,
+     * the position after the expected reply of the opponent is searched in
+     * the background, or the position after the move if no reply is known.
+     * If the opponent plays the expected reply, the result is used without
+     * searching again, otherwise the search profits from the results of the
+     * background search in the transposition table. Only pays off if the
+     * opponent takes long for their moves, like a human player does.
+     * 
+     * @param pondering
+     *            true to search while the opponent thinks
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
+
+    /**
+     * Search with a {@link MonteCarloTreeSearch} instead of the alpha beta
+     * search. The opening book and the endgame solver are used as before.
+     * The time limit of {@link #getLimits()} and the thread count of
+     * {@link #getOptions()} apply to the Monte Carlo tree search as well.
+     * 
+     * @param enabled
+     *            true to use the Monte Carlo tree search
+     */
+    public void setMonteCarlo(boolean enabled) {
+        monteCarlo = enabled ? new MonteCarloTreeSearch<CFMove>(getGame())
+                : null;
+    }
+
+
+    /**
+     * limit the iterations per move of the Monte Carlo tree search, see
+     * {@link #setMonteCarlo(boolean)}. Without an iteration or time limit,
+     * {@value MonteCarloTreeSearch#ITERATIONS} iterations are done.
+     * 
+     * @param iterations
+     *            the number of iterations, 0 for no limit
+     */
+    public void setMonteCarloIterations(long iterations) {
+        monteCarloIterations = iterations;
+    }
+
+
+    /**
+     * Search forced wins with a {@link CFThreatSpaceSearch} before the
+     * heuristic search. If one is found, its first move is done without
+     * searching further. Enabled by default.
+     * 
+     * @param enabled
+     *            true to search forced wins
+     */
+    public void setThreatSearch(boolean enabled) {
+        threatSearchEnabled = enabled;
+    }
+
+
+    /**
+     * set an opening book. Positions that are in the book are not searched.
+     * 
+     * @param book
+     *            the book, null to always search
+     */
+    public void setOpeningBook(CFOpeningBook book) {
+        this.book = book;
+    }
+
+
+    /**
+     * set the number of empty cells at or below which positions are solved
+     * exactly with a {@link CFEndgameSolver}
+     * 
+     * @param endgameCells
+     *            the number of empty cells, 0 to never solve exactly
+     */
+    public void setEndgameCells(int endgameCells) {
+        this.endgameCells = endgameCells;
     }
 
 
     @Override
     public CFMove getMove() {
+        CFMove move = chooseMove();
+        Terminal.prompt("Player " + id + ": ");
+        Terminal.println("" + move.getX());
+        return move;
+    }
+
+
+    /**
+     * choose the move to do like {@link #getMove()}, without printing it
+     * 
+     * @return the move
+     */
+    public CFMove chooseMove() {
+        moveSearched = false;
+        CFMove pondered = finishPondering();
+        CFMove move = null;
+        if (book != null) {
+            move = book.getMove(getGame());
+        }
+        if (move == null
+                || getGame().getGameField().nextPutY(move.getX()) < 0) {
+            move = findForcedWin();
+        }
+        if (move == null) {
+            move = pondered != null ? pondered : searchMove();
+        }
+        if (pondering) {
+            startPondering(move);
+        }
+        return move;
+    }
+
+
+    /**
+     * check if the last move was found by the heuristic or Monte Carlo tree
+     * search, so {@link #getLastStatistics()} belong to it. Moves from the
+     * opening book, the endgame solver, the threat-space search or the search
+     * while the opponent thought are not.
+     * 
+     * @return true if the last move was searched
+     */
+    public boolean isMoveSearched() {
+        return moveSearched;
+    }
+
+
+    /**
+     * start searching the expected position after a move in the background
+     * 
+     * @param move
+     *            the move this player is about to do
+     */
+    private void startPondering(CFMove move) {
+        TranspositionTable<CFMove> table = getTable();
+        if (table == null) {
+            return;
+        }
+        CFGame position = getGame().copy();
+        position.perform(move);
+        long hash = position.getCanonicalHash();
+        // the slot may hold the move of another position
+        CFMove reply = table.probe(hash) != 0 ? table.getMove(hash) : null;
+        if (reply != null && position.isTransformed()) {
+            reply = position.transformMove(reply);
+        }
+        if (reply != null && position.getState() == GameState.PLAYING
+                && position.getGameField().nextPutY(reply.getX()) >= 0) {
+            position.perform(reply);
+        }
+        if (position.getState() == GameState.PLAYING
+                && emptyCells(position) > endgameCells) {
+            ponderHash = position.getHash();
+            ponder = new PonderSearch<CFMove>(position, table,
+                    getOptions().getMaxDepth());
+        }
+    }
+
+
+    /**
+     * stop the search in the background
+     * 
+     * @return the result of the search, if it searched the current position
+     *         up to the maximum depth, null otherwise
+     */
+    private CFMove finishPondering() {
+        if (ponder == null) {
+            return null;
+        }
+        CFMove move = ponder.finish();
+        ponder = null;
+        if (ponderHash != getGame().getHash()) {
+            return null;
+        }
+        return move;
+    }
+
+
+    /**
+     * count the empty cells of a game
+     * 
+     * @param game
+     *            the game
+     * @return the number of empty cells
+     */
+    private static int emptyCells(CFGame game) {
+        return CFGameField.ROW_COUNT * CFGameField.COL_COUNT
+                - Long.bitCount(game.getGameField().getOccupied());
+    }
+
+
+    /**
+     * search a forced win by threats, unless the position is solved exactly
+     * anyway
+     * 
+     * @return the first move of the win, null if none was found
+     */
+    private CFMove findForcedWin() {
+        if (!threatSearchEnabled || emptyCells(getGame()) <= endgameCells) {
+            return null;
+        }
+        CFMove move = threatSearch.findWin(getGame());
+        if (move != null && logStatistics) {
+            Terminal.println("Player " + id + " found a win in "
+                    + threatSearch.getWinPlies() + " plies, nodes "
+                    + threatSearch.getNodes());
+        }
+        return move;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * With a Monte Carlo tree search, these are its statistics.
+     */
+    @Override
+    public SearchStatistics getLastStatistics() {
+        if (monteCarlo != null) {
+            return monteCarlo.getLastStatistics();
+        }
+        return super.getLastStatistics();
+    }
+
+
+    /**
+     * search the best move
+     * 
+     * @return the move
+     */
+    private CFMove searchMove() {
+        if (emptyCells(getGame()) <= endgameCells) {
+            if (solver == null) {
+                solver = new CFEndgameSolver();
+            }
+            return solver.solve(getGame());
+        }
         CFMove move = null;
         try {
-            move = getBestMove();
+            if (monteCarlo != null) {
+                monteCarlo.setTimeLimit(getLimits().getTimeLimit());
+                monteCarlo.setIterationLimit(monteCarloIterations);
+                monteCarlo.setThreadCount(getOptions().getThreadCount());
+                move = monteCarlo.getBestMove();
+            } else {
+                move = getBestMove();
+            }
+            moveSearched = true;
+            if (logStatistics) {
+                Terminal.println("Player " + id + " searched "
+                        + getLastStatistics());
+            }
         } catch (GameException e) {
-            // no move was found that has a larger rating than -Inf
-            // i.e. Every possible move results in losing
-            // so move the first possible move
+            // the search was aborted before it found any move
             move = getGame().getValidMoves().get(0);
         }
-        Terminal.prompt("Player " + id + ": ");
-        Terminal.println("" + move.getX());
         return move;
     }
 }
@@ -0,0 +1,316 @@
+package final1.connectfour;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import final1.Terminal;
+import final1.algorithm.AlphaBetaAlgorithm;
+import final1.algorithm.AnalyzedMove;
+import final1.algorithm.GameException;
+import final1.algorithm.GameState;
+import final1.algorithm.MultiPvSearch;
+
+/**
+ * Analyses the positions of a file. Every line of the file is one position,
+ * written as the columns of the moves that lead to it from the empty board,
+ * one digit each. Blank lines are skipped. For every position, the best move,
+ * its score and the statistics of the search are printed, in the order of the
+ * file, or the best moves with their exact scores and lines, see
+ * {@link MultiPvSearch}. The positions are searched in parallel by a number of
+ * workers, each with its own game and search, and the file is read while the
+ * workers search. A worker keeps its transposition table between positions, as
+ * positions of the same game share many subtrees, so the results may depend on
+ * which worker searched the positions before. With the option -r, every
+ * position is searched from scratch instead, so the results are reproducible.
+ * 
+ * @author robin
+ * @version 2
+ */
+public final class CFAnalyzer {
+
+    /** the file the positions are read from */
+    private final BufferedReader input;
+    /** the search depth for every position */
+    private final int depth;
+    /** the number of best moves printed, 0 to print only the best move */
+    private final int lines;
+    /** if every position is searched from scratch */
+    private final boolean reproducible;
+    /** the index of the next line that is read */
+    private int nextInput;
+    /** the index of the next result that is printed */
+    private int nextOutput;
+    /** the results that cannot be printed yet, by their index */
+    private final Map<Integer, String> pending = new HashMap<Integer, String>();
+    /** the error that occurred while reading the file, null if none */
+    private IOException readError;
+
+
+    /**
+     * initialize an analyzer
+     * 
+     * @param input
+     *            the file the positions are read from
+     * @param depth
+     *            the search depth for every position
+     * @param lines
+     *            the number of best moves printed, 0 to print only the best
+     *            move
+     * @param reproducible
+     *            if every position is searched from scratch
+     */
+    private CFAnalyzer(BufferedReader input, int depth, int lines,
+            boolean reproducible) {
+        this.input = input;
+        this.depth = depth;
+        this.lines = lines;
+        this.reproducible = reproducible;
+    }
+
+
+    /**
+     * Analyse the positions of a file. Arguments: optionally -r to make the
+     * results reproducible, the file, optionally the
+     * number of workers, which defaults to the number of processors, the
+     * search depth, which defaults to {@link AlphaBetaAlgorithm#SEARCH_DEPTH},
+     * and the number of best moves to print with their exact scores, which
+     * defaults to 0 to print only the best move and the search statistics.
+     * 
+     * @param arguments
+     *            the command line arguments
+     */
+    public static void main(String[] arguments) {
+        boolean reproducible = arguments.length > 0
+                && "-r".equals(arguments[0]);
+        String[] args = reproducible ? Arrays.copyOfRange(arguments, 1,
+                arguments.length) : arguments;
+        if (args.length < 1 || args.length > 4) {
+            Terminal.println("Error, expected arguments: [-r] file [workers]"
+                    + " [depth] [lines]");
+            System.exit(1);
+        }
+        int workers = Runtime.getRuntime().availableProcessors();
+        int depth = AlphaBetaAlgorithm.SEARCH_DEPTH;
+        int lines = 0;
+        try {
+            if (args.length >= 2) {
+                workers = Integer.parseInt(args[1]);
+            }
+            if (args.length >= 3) {
+                depth = Integer.parseInt(args[2]);
+            }
+            if (args.length == 4) {
+                lines = Integer.parseInt(args[3]);
+            }
+        } catch (NumberFormatException e) {
+            Terminal.println("Error, workers, depth and lines must be numbers");
+            System.exit(1);
+        }
+        if (workers <= 0 || depth <= 0 || lines < 0) {
+            Terminal.println("Error, workers and depth must be > 0, lines >= 0");
+            System.exit(1);
+        }
+        try {
+            BufferedReader input = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(args[0]), "US-ASCII"));
+            try {
+                new CFAnalyzer(input, depth, lines, reproducible).run(workers);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            Terminal.println("Error, could not read " + args[0] + ": "
+                    + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+
+    /**
+     * analyse all positions and print the throughput
+     * 
+     * @param workerCount
+     *            the number of workers
+     * @throws IOException
+     *             if the file could not be read
+     */
+    private void run(int workerCount) throws IOException {
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<Thread>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    analyzePositions();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (readError != null) {
+            throw readError;
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+        Terminal.println(nextOutput + " positions in " + millis + " ms ("
+                + nextOutput * 1000 / millis + " positions/s)");
+    }
+
+
+    /**
+     * read the next line of the file that is not blank. Must be called while
+     * holding the lock of this analyzer.
+     * 
+     * @return the line, or null at the end of the file or after a read error
+     */
+    private String readPosition() {
+        String line;
+        do {
+            try {
+                line = readError == null ? input.readLine() : null;
+            } catch (IOException e) {
+                readError = e;
+                line = null;
+            }
+        } while (line != null && line.trim().isEmpty());
+        return line;
+    }
+
+
+    /**
+     * analyse positions until the end of the file is reached
+     */
+    private void analyzePositions() {
+        CFGame game = new CFGame(2);
+        AlphaBetaAlgorithm<CFGame, CFMove> search = new AlphaBetaAlgorithm<CFGame, CFMove>(
+                game);
+        search.getOptions().setMaxDepth(depth);
+        search.getOptions().setDeterministic(reproducible);
+        MultiPvSearch<CFMove> analysis = new MultiPvSearch<CFMove>(game);
+        analysis.getOptions().setMaxDepth(depth);
+        while (true) {
+            String line;
+            int index;
+            synchronized (this) {
+                line = readPosition();
+                index = nextInput++;
+            }
+            if (line == null) {
+                return;
+            }
+            String moves = line.trim();
+            String error = setUp(game, moves);
+            if (error != null) {
+                write(index, line + ": " + error);
+            } else if (lines > 0) {
+                if (reproducible) {
+                    // the moves of one position still share the table
+                    analysis.clearTable();
+                }
+                write(index, line + ": " + analyzeLines(analysis));
+            } else {
+                write(index, line + ": " + analyze(search));
+            }
+        }
+    }
+
+
+    /**
+     * set up the game of a worker in a position
+     * 
+     * @param game
+     *            the game of the worker
+     * @param moves
+     *            the moves that lead to the position
+     * @return an error message if the position is invalid, else null
+     */
+    private static String setUp(CFGame game, String moves) {
+        while (game.getMoveCount() > 0) {
+            game.undo();
+        }
+        for (int i = 0; i < moves.length(); i++) {
+            int x = moves.charAt(i) - '0';
+            if (game.getState() != GameState.PLAYING
+                    || !game.getGameField().inbound(x)
+                    || game.getGameField().nextPutY(x) < 0) {
+                return "error, invalid move " + moves.charAt(i);
+            }
+            game.perform(CFMove.valueOf(x));
+        }
+        if (game.getState() != GameState.PLAYING) {
+            return "error, the game is over";
+        }
+        return null;
+    }
+
+
+    /**
+     * search the best move of a position
+     * 
+     * @param search
+     *            the search of the worker
+     * @return the result
+     */
+    private static String analyze(AlphaBetaAlgorithm<CFGame, CFMove> search) {
+        try {
+            CFMove move = search.getBestMove();
+            return "move " + move.getX() + ", " + search.getLastStatistics();
+        } catch (GameException e) {
+            return "error, " + e.getMessage();
+        }
+    }
+
+
+    /**
+     * analyse the best moves of a position
+     * 
+     * @param analysis
+     *            the analysis of the worker
+     * @return the moves with their scores and lines
+     */
+    private String analyzeLines(MultiPvSearch<CFMove> analysis) {
+        StringBuilder result = new StringBuilder();
+        for (AnalyzedMove<CFMove> move : analysis.analyze(lines)) {
+            result.append(result.length() == 0 ? "" : ", ").append("move ")
+                    .append(move.getMove()).append(" score ")
+                    .append(move.getScore()).append(" line ");
+            for (CFMove next : move.getPrincipalVariation()) {
+                result.append(next);
+            }
+        }
+        return result.toString();
+    }
+
+
+    /**
+     * print a result, and all results after it that were waiting for it
+     * 
+     * @param index
+     *            the index of the position
+     * @param result
+     *            the result
+     */
+    private synchronized void write(int index, String result) {
+        pending.put(index, result);
+        String next = pending.remove(nextOutput);
+        while (next != null) {
+            Terminal.println(next);
+            nextOutput++;
+            next = pending.remove(nextOutput);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package final1.connectfour;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import final1.Terminal;
+import final1.algorithm.AlphaBetaAlgorithm;
+import final1.algorithm.GameException;
+import final1.algorithm.GameState;
+
+/**
+ * Generates an opening book for {@link CFOpeningBook}. Every position that
+ * can be reached in less than the given number of plies is searched with the
+ * given depth and its best move is written to the book. Mirror images of
+ * positions that are already in the book are skipped.
+ * 
+ * @author robin
+ * @version 1
+ */
+public final class CFBookGenerator {
+
+    /** the game that is searched */
+    private final CFGame game;
+    /** the AI used to search the positions */
+    private final AlphaBetaAlgorithm<CFGame, CFMove> searcher;
+    /** the best moves found, sorted by canonical position hash */
+    private final Map<Long, CFMove> book;
+
+
+    /**
+     * initialize a new generator
+     * 
+     * @param depth
+     *            the search depth for every position
+     */
+    private CFBookGenerator(int depth) {
+        game = new CFGame(2);
+        searcher = new AlphaBetaAlgorithm<CFGame, CFMove>(game);
+        searcher.getOptions().setMaxDepth(depth);
+        book = new TreeMap<Long, CFMove>();
+    }
+
+
+    /**
+     * Generate an opening book. Arguments: the output file, the number of
+     * plies to cover and optionally the search depth, which defaults to
+     * {@link AlphaBetaAlgorithm#SEARCH_DEPTH}.
+     * 
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            Terminal.println("Error, expected arguments: file plies [depth]");
+            System.exit(1);
+        }
+        int plies = 0;
+        int depth = AlphaBetaAlgorithm.SEARCH_DEPTH;
+        try {
+            plies = Integer.parseInt(args[1]);
+            if (args.length == 3) {
+                depth = Integer.parseInt(args[2]);
+            }
+        } catch (NumberFormatException e) {
+            Terminal.println("Error, plies and depth must be numbers");
+            System.exit(1);
+        }
+        CFBookGenerator generator = new CFBookGenerator(depth);
+        generator.addPositions(plies);
+        try {
+            generator.write(args[0]);
+        } catch (IOException e) {
+            Terminal.println("Error, could not write " + args[0] + ": "
+                    + e.getMessage());
+            System.exit(1);
+        }
+        Terminal.println(generator.book.size() + " positions written");
+    }
+
+
+    /**
+     * search the current position and all positions that can be reached from
+     * it in less than the given number of plies
+     * 
+     * @param plies
+     *            the remaining number of plies
+     */
+    private void addPositions(int plies) {
+        if (plies <= 0 || game.getState() != GameState.PLAYING
+                || game.getValidMoves().isEmpty()
+                || book.containsKey(game.getCanonicalHash())) {
+            return;
+        }
+        try {
+            CFMove move = searcher.getBestMove();
+            if (game.isTransformed()) {
+                move = game.transformMove(move);
+            }
+            book.put(game.getCanonicalHash(), move);
+        } catch (GameException e) {
+            // there is a move and no budget, so the search always finds one
+            throw new IllegalStateException(e);
+        }
+        List<CFMove> moves = game.getValidMoves();
+        // the list is reused by the game, so copy the columns first
+        int[] columns = new int[moves.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = moves.get(i).getX();
+        }
+        for (int x : columns) {
+            game.perform(CFMove.valueOf(x));
+            addPositions(plies - 1);
+            game.undo();
+        }
+    }
+
+
+    /**
+     * write the book in the format described in {@link CFOpeningBook}
+     * 
+     * @param filename
+     *            the file to write
+     * @throws IOException
+     *             if the file could not be written
+     */
+    private void write(String filename) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(filename)));
+        try {
+            out.writeInt(CFOpeningBook.MAGIC);
+            out.writeInt(book.size());
+            for (Map.Entry<Long, CFMove> entry : book.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeByte(entry.getValue().getX());
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package final1.connectfour;
+
+/**
+ * An exact solver for Connect Four positions with few empty cells. Instead of
+ * the heuristic {@link CFGame#evaluateState()}, it searches until the end of
+ * the game and rates positions game-theoretically: a win is worth more the
+ * earlier it happens, a loss is worth less the earlier it happens and a draw
+ * is worth 0. The solver works directly on the bitboards of the field and
+ * narrows the score down with null window searches.
+ * 
+ * @author robin
+ * @version 1
+ */
+public class CFEndgameSolver {
+
+    /** the number of cells of the field */
+    private static final int CELLS = CFGameField.ROW_COUNT
+            * CFGameField.COL_COUNT;
+    /** below the lowest possible score */
+    private static final int MIN_SCORE = -CELLS / 2 - 1;
+    /** the columns in the order they are searched, center first */
+    private static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+    /** the size of the transposition table as a power of two */
+    private static final int TABLE_SIZE_BITS = 20;
+
+    /**
+     * the keys of the positions in the transposition table. The key
+     * current + occupied is unique for every position.
+     */
+    private final long[] keys;
+    /**
+     * the upper bounds of the scores of the positions, stored as
+     * {@code bound - MIN_SCORE + 1}, so 0 means no entry
+     */
+    private final byte[] upperBounds;
+    /** the score of the last solved position */
+    private int score;
+
+
+    /**
+     * initialize a new solver
+     */
+    public CFEndgameSolver() {
+        keys = new long[1 << TABLE_SIZE_BITS];
+        upperBounds = new byte[1 << TABLE_SIZE_BITS];
+    }
+
+
+    /**
+     * Find the best move for the player who has the turn: the shortest win if
+     * there is one, else a draw, else the longest loss.
+     * 
+     * @param game
+     *            the game, which must still be running
+     * @return the best move, leftmost of the best moves with the same score
+     *         in center-first order
+     */
+    public CFMove solve(CFGame game) {
+        CFGameField field = game.getGameField();
+        long current = field.getPieces(game.getCurrentPlayer());
+        long occupied = field.getOccupied();
+        int moves = Long.bitCount(occupied);
+        long playable = CFGameField.playableCells(occupied);
+        int bestScore = Integer.MIN_VALUE;
+        int bestX = -1;
+        for (int x : COLUMN_ORDER) {
+            long move = playable & CFGameField.columnCells(x);
+            if (move == 0) {
+                continue;
+            }
+            long opponent = current ^ occupied;
+            long next = occupied | move;
+            int moveScore;
+            if ((CFGameField.winningCells(current) & move) != 0) {
+                moveScore = (CELLS + 1 - moves) / 2;
+            } else if ((CFGameField.winningCells(opponent) & CFGameField
+                    .playableCells(next)) != 0) {
+                // the opponent wins with his next piece
+                moveScore = -(CELLS - moves) / 2;
+            } else {
+                moveScore = -solve(opponent, next, moves + 1);
+            }
+            if (moveScore > bestScore) {
+                bestScore = moveScore;
+                bestX = x;
+            }
+        }
+        score = bestScore;
+        return CFMove.valueOf(bestX);
+    }
+
+
+    /**
+     * Get the score of the last solved position. Positive scores are wins,
+     * (cells left + 1) / 2 for a win with the next piece and counting down by
+     * one for every later piece of the winner, negative scores are losses in
+     * the same way, and 0 is a draw.
+     * 
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+
+    /**
+     * calculate the exact score of a position in which the player to move
+     * can not win immediately, by narrowing the score window with null window
+     * searches
+     * 
+     * @param current
+     *            the pieces of the player to move
+     * @param occupied
+     *            all occupied cells
+     * @param moves
+     *            the number of pieces on the field
+     * @return the score of the position
+     */
+    private int solve(long current, long occupied, int moves) {
+        int min = -(CELLS - moves) / 2;
+        int max = (CELLS + 1 - moves) / 2;
+        while (min < max) {
+            int med = min + (max - min) / 2;
+            // search closer to 0 first, where most scores are
+            if (med <= 0 && min / 2 < med) {
+                med = min / 2;
+            } else if (med >= 0 && max / 2 > med) {
+                med = max / 2;
+            }
+            int result = negamax(current, occupied, moves, med, med + 1);
+            if (result <= med) {
+                max = result;
+            } else {
+                min = result;
+            }
+        }
+        return min;
+    }
+
+
+    /**
+     * Recursively search a position in which the player to move can not win
+     * immediately. Moves that allow the opponent to win immediately are not
+     * searched.
+     * 
+     * @param current
+     *            the pieces of the player to move
+     * @param occupied
+     *            all occupied cells
+     * @param moves
+     *            the number of pieces on the field
+     * @param alpha
+     *            the lower bound of the search window
+     * @param beta
+     *            the upper bound of the search window
+     * @return the score if it is within the window, else a bound of it
+     */
+    private int negamax(long current, long occupied, int moves, int alpha,
+            int beta) {
+        long next = nonLosingMoves(current, occupied);
+        if (next == 0) {
+            return -(CELLS - moves) / 2;
+        }
+        if (moves >= CELLS - 2) {
+            return 0;
+        }
+        int lo = alpha;
+        int hi = beta;
+        int min = -(CELLS - 2 - moves) / 2;
+        if (lo < min) {
+            lo = min;
+            if (lo >= hi) {
+                return lo;
+            }
+        }
+        int max = (CELLS - 1 - moves) / 2;
+        long key = current + occupied;
+        int slot = (int) (key % keys.length);
+        if (keys[slot] == key && upperBounds[slot] != 0) {
+            max = upperBounds[slot] + MIN_SCORE - 1;
+        }
+        if (hi > max) {
+            hi = max;
+            if (lo >= hi) {
+                return hi;
+            }
+        }
+        for (int x : COLUMN_ORDER) {
+            long move = next & CFGameField.columnCells(x);
+            if (move != 0) {
+                int value = -negamax(current ^ occupied, occupied | move,
+                        moves + 1, -hi, -lo);
+                if (value >= hi) {
+                    return value;
+                }
+                if (value > lo) {
+                    lo = value;
+                }
+            }
+        }
+        keys[slot] = key;
+        upperBounds[slot] = (byte) (lo - MIN_SCORE + 1);
+        return lo;
+    }
+
+
+    /**
+     * get the moves of the player to move that do not allow the opponent to
+     * win with his next move
+     * 
+     * @param current
+     *            the pieces of the player to move
+     * @param occupied
+     *            all occupied cells
+     * @return the cells of the moves, 0 if every move loses
+     */
+    private static long nonLosingMoves(long current, long occupied) {
+        long playable = CFGameField.playableCells(occupied);
+        long opponentWins = CFGameField.winningCells(current ^ occupied)
+                & ~occupied;
+        long forced = playable & opponentWins;
+        if (forced != 0) {
+            if ((forced & (forced - 1)) != 0) {
+                // two threats can not be blocked at once
+                return 0;
+            }
+            playable = forced;
+        }
+        // do not put a piece directly below a threat of the opponent
+        return playable & ~(opponentWins >>> 1);
+    }
+}
@@ -0,0 +1,197 @@
+package final1.connectfour;
+
+import final1.algorithm.AlphaBetaAlgorithm;
+
+/**
+ * A configuration of the settings of a {@link CFAIPlayer}, so different
+ * configurations can be compared by {@link CFTournament}. A configuration is
+ * written as a comma separated list of settings, e.g.
+ * <code>depth=9,endgame=0,pvs=off</code>. Settings that are not listed keep
+ * their defaults. The settings are:
+ * <ul>
+ * <li>depth: the maximum search depth</li>
+ * <li>threads: the number of threads searching every move</li>
+ * <li>time: the time limit per move in milliseconds, 0 for none</li>
+ * <li>nodes: the node limit per move, 0 for none</li>
+ * <li>endgame: the number of empty cells from which on positions are solved
+ * exactly, 0 to never solve them</li>
+ * <li>pvs: on or off, the principal variation search</li>
+ * <li>aspiration: the size of the aspiration window, 0 for none</li>
+ * <li>mtdf: on or off, searching the root by MTD(f)</li>
+ * <li>lmr: on or off, the late move reductions</li>
+ * <li>extensions: on or off, the extensions of forced replies</li>
+ * <li>deterministic: on or off, reproducible searches that ignore the time
+ * limit</li>
+ * <li>threats: on or off, the search for forced wins by threats before the
+ * heuristic search</li>
+ * <li>mcts: on or off, a Monte Carlo tree search instead of the alpha beta
+ * search, which uses the time limit and threads as well. A number turns it
+ * on with that many iterations per move, 0 turns it off.</li>
+ * </ul>
+ * 
+ * @author robin
+ * @version 1
+ */
+public final class CFEngineConfig {
+
+    /** the configuration as written */
+    private final String description;
+    /** the maximum search depth */
+    private int maxDepth = AlphaBetaAlgorithm.SEARCH_DEPTH;
+    /** the number of threads searching every move */
+    private int threadCount = 1;
+    /** the time limit per move in milliseconds */
+    private long timeLimit;
+    /** the node limit per move */
+    private long nodeLimit;
+    /** the number of empty cells from which on positions are solved */
+    private int endgameCells = CFAIPlayer.ENDGAME_CELLS;
+    /** if the principal variation search is enabled */
+    private boolean principalVariation = true;
+    /** the size of the aspiration window */
+    private int aspirationWindow;
+    /** if the root is searched by MTD(f) */
+    private boolean mtdf;
+    /** if late quiet moves are searched with a reduced depth */
+    private boolean lateMoveReductions;
+    /** if forced replies are searched one ply deeper */
+    private boolean forcedMoveExtensions;
+    /** if the searches are reproducible */
+    private boolean deterministic;
+    /** if forced wins are searched by threats */
+    private boolean threatSearch = true;
+    /** if the Monte Carlo tree search is used */
+    private boolean monteCarlo;
+    /** the iterations of the Monte Carlo tree search, 0 for no limit */
+    private long monteCarloIterations;
+
+
+    /**
+     * initialize the default configuration
+     * 
+     * @param description
+     *            the configuration as written
+     */
+    private CFEngineConfig(String description) {
+        this.description = description;
+    }
+
+
+    /**
+     * parse a configuration
+     * 
+     * @param description
+     *            the comma separated settings, may be empty
+     * @return the configuration
+     * @throws IllegalArgumentException
+     *             if a setting is unknown or its value is invalid
+     */
+    public static CFEngineConfig parse(String description) {
+        CFEngineConfig config = new CFEngineConfig(description);
+        if (description.isEmpty()) {
+            return config;
+        }
+        for (String setting : description.split(",")) {
+            String[] parts = setting.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("expected key=value: "
+                        + setting);
+            }
+            try {
+                config.set(parts[0], parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a number: "
+                        + setting);
+            }
+        }
+        return config;
+    }
+
+
+    /**
+     * change one setting
+     * 
+     * @param key
+     *            the name of the setting
+     * @param value
+     *            the new value
+     */
+    private void set(String key, String value) {
+        if ("depth".equals(key)) {
+            maxDepth = Integer.parseInt(value);
+            if (maxDepth <= 0) {
+                throw new IllegalArgumentException("depth must be > 0");
+            }
+        } else if ("threads".equals(key)) {
+            threadCount = Integer.parseInt(value);
+            if (threadCount <= 0) {
+                throw new IllegalArgumentException("threads must be > 0");
+            }
+        } else if ("time".equals(key)) {
+            timeLimit = Long.parseLong(value);
+        } else if ("nodes".equals(key)) {
+            nodeLimit = Long.parseLong(value);
+        } else if ("endgame".equals(key)) {
+            endgameCells = Integer.parseInt(value);
+        } else if ("pvs".equals(key) && ("on".equals(value)
+                || "off".equals(value))) {
+            principalVariation = "on".equals(value);
+        } else if ("deterministic".equals(key) && ("on".equals(value)
+                || "off".equals(value))) {
+            deterministic = "on".equals(value);
+        } else if ("mtdf".equals(key) && ("on".equals(value)
+                || "off".equals(value))) {
+            mtdf = "on".equals(value);
+        } else if ("lmr".equals(key) && ("on".equals(value)
+                || "off".equals(value))) {
+            lateMoveReductions = "on".equals(value);
+        } else if ("extensions".equals(key) && ("on".equals(value)
+                || "off".equals(value))) {
+            forcedMoveExtensions = "on".equals(value);
+        } else if ("threats".equals(key) && ("on".equals(value)
+                || "off".equals(value))) {
+            threatSearch = "on".equals(value);
+        } else if ("aspiration".equals(key)) {
+            aspirationWindow = Integer.parseInt(value);
+        } else if ("mcts".equals(key)) {
+            monteCarlo = !"off".equals(value);
+            if (!"on".equals(value) && monteCarlo) {
+                monteCarloIterations = Long.parseLong(value);
+                monteCarlo = monteCarloIterations > 0;
+            }
+        } else {
+            throw new IllegalArgumentException("unknown setting: " + key
+                    + "=" + value);
+        }
+    }
+
+
+    /**
+     * change the settings of a player to this configuration
+     * 
+     * @param player
+     *            the player
+     */
+    public void apply(CFAIPlayer player) {
+        player.getOptions().setMaxDepth(maxDepth);
+        player.getOptions().setThreadCount(threadCount);
+        player.getLimits().setTimeLimit(timeLimit);
+        player.getLimits().setNodeLimit(nodeLimit);
+        player.setEndgameCells(endgameCells);
+        player.getOptions().setPrincipalVariationSearch(principalVariation);
+        player.getOptions().setAspirationWindow(aspirationWindow);
+        player.getOptions().setMtdf(mtdf);
+        player.getOptions().setLateMoveReductions(lateMoveReductions);
+        player.getOptions().setForcedMoveExtensions(forcedMoveExtensions);
+        player.getOptions().setDeterministic(deterministic);
+        player.setMonteCarlo(monteCarlo);
+        player.setMonteCarloIterations(monteCarloIterations);
+        player.setThreatSearch(threatSearch);
+    }
+
+
+    @Override
+    public String toString() {
+        return description.isEmpty() ? "default" : description;
+    }
+}
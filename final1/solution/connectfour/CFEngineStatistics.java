@@ -0,0 +1,107 @@
+package final1.connectfour;
+
+import final1.algorithm.GameState;
+import final1.algorithm.SearchStatistics;
+
+/**
+ * The results of one engine configuration in a {@link CFTournament}. Every
+ * worker thread collects its own statistics, which are merged at the end.
+ * 
+ * @author robin
+ * @version 1
+ */
+public class CFEngineStatistics {
+
+    /** the number of won games */
+    private int wins;
+    /** the number of drawn games */
+    private int draws;
+    /** the number of lost games */
+    private int losses;
+    /** the number of moves done */
+    private long moves;
+    /** the time spent choosing the moves in nanoseconds */
+    private long moveNanos;
+    /** the nodes visited by the heuristic search */
+    private long nodes;
+    /** the time spent in the heuristic search in nanoseconds */
+    private long searchNanos;
+
+
+    /** initialize statistics without any games */
+    public CFEngineStatistics() {
+
+    }
+
+
+    /**
+     * count a finished game
+     * 
+     * @param state
+     *            the state at the end of the game
+     * @param id
+     *            the player id the configuration played as
+     */
+    public void addGame(GameState state, int id) {
+        if (state == GameState.DRAW) {
+            draws++;
+        } else if (state == GameState.PLAYER_1_WON && id == 1
+                || state == GameState.PLAYER_2_WON && id == 2) {
+            wins++;
+        } else {
+            losses++;
+        }
+    }
+
+
+    /**
+     * count a move
+     * 
+     * @param nanos
+     *            the time spent choosing the move
+     * @param search
+     *            the statistics of the search that found the move, null if it
+     *            was not searched
+     */
+    public void addMove(long nanos, SearchStatistics search) {
+        moves++;
+        moveNanos += nanos;
+        if (search != null) {
+            nodes += search.getNodes();
+            searchNanos += search.getElapsedNanos();
+        }
+    }
+
+
+    /**
+     * add the results collected by another thread
+     * 
+     * @param other
+     *            the results to add
+     */
+    public void merge(CFEngineStatistics other) {
+        wins += other.wins;
+        draws += other.draws;
+        losses += other.losses;
+        moves += other.moves;
+        moveNanos += other.moveNanos;
+        nodes += other.nodes;
+        searchNanos += other.searchNanos;
+    }
+
+
+    /**
+     * summarize the results in one line
+     * 
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        double msPerMove = moves == 0 ? 0 : moveNanos / 1E6 / moves;
+        long nodesPerSecond = searchNanos == 0 ? 0
+                : (long) (nodes * 1E9 / searchNanos);
+        return wins + " wins, " + draws + " draws, " + losses + " losses, "
+                + Math.round(msPerMove * 100) / 100d + " ms/move, "
+                + nodesPerSecond / 1000 + " kN/s";
+    }
+}
@@ -1,12 +1,17 @@
 package final1.connectfour;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
+import java.util.Random;
 
-import final1.algorithm.Game;
+import final1.algorithm.CopyableGame;
 import final1.algorithm.GameState;
+import final1.algorithm.MoveHistory;
+import final1.algorithm.OrderedGame;
 import final1.algorithm.Player;
+import final1.algorithm.Score;
+import final1.algorithm.SelectiveGame;
+import final1.algorithm.SymmetricGame;
 
 /**
  * The classic Connect Four game. Inputs are read from stdin, status and prompts
@@ -15,13 +20,35 @@ import final1.algorithm.Player;
  * @author robin
  * @version 1
  */
-public class CFGame implements Game<CFMove> {
+public class CFGame implements SymmetricGame<CFMove>, CopyableGame<CFMove>,
+        OrderedGame<CFMove>, SelectiveGame<CFMove> {
+
+    /**
+     * Random keys for Zobrist hashing, one per player and cell, indexed by
+     * [player - 1][y * COL_COUNT + x]. The seed is fixed so hashes are the
+     * same in every run. The player to move is not hashed, as it follows from
+     * the number of pieces on the field.
+     */
+    private static final long[][] ZOBRIST_KEYS = new long[2][CFGameField.ROW_COUNT
+            * CFGameField.COL_COUNT];
+
+    static {
+        Random random = new Random(0x4346L);
+        for (long[] keys : ZOBRIST_KEYS) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+    }
 
     private final CFGameField gameField;
     /**
-     * A stack of the history of all moves from the beginning of the game.
+     * The columns of all moves from the beginning of the game, in the order
+     * they were done.
      */
-    private final Stack<CFMove> moves;
+    private final int[] moves;
+    /** the number of moves in {@link #moves} */
+    private int moveCount;
     /**
      * A list of {@link CFThreat}s, this List has reversible functions, so moves
      * can be undone without completely regenerating the list
@@ -34,6 +61,11 @@ public class CFGame implements Game<CFMove> {
     private final Player<CFMove> player2;
 
     private final CFMoveComparator moveComparer;
+    /**
+     * One list of moves per ply, reused by {@link #getValidMoves()} so move
+     * generation does not allocate during the search.
+     */
+    private final List<List<CFMove>> moveLists;
 
     /**
      * The player who's turn it currently is.
@@ -46,6 +78,13 @@ public class CFGame implements Game<CFMove> {
      */
     private GameState state = GameState.PLAYING;
 
+    /**
+     * the Zobrist hash of the current position, updated on every move
+     */
+    private long hash;
+    /** the Zobrist hash of the mirror image of the current position */
+    private long mirroredHash;
+
 
     /**
      * Initialize a new Connect Four game with the specified amount of human
@@ -66,18 +105,72 @@ public class CFGame implements Game<CFMove> {
         if (playerCount >= 2) {
             player2 = new CFHumanPlayer(this, 2);
         } else {
-            player2 = new CFAIPlayer(this, 2);
+            CFAIPlayer ai = new CFAIPlayer(this, 2);
+            // use the time the human player thinks
+            ai.setPondering(playerCount == 1);
+            player2 = ai;
         }
-        moves = new Stack<CFMove>();
+        moves = new int[CFGameField.ROW_COUNT * CFGameField.COL_COUNT];
+        threats = new CFThreatList(this);
+        moveComparer = new CFMoveComparator(this);
+        moveLists = createMoveLists();
+    }
+
+
+    /**
+     * Initialize a copy of a game by replaying its moves. The copy has no
+     * players, so {@link #nextTurn()} must not be called on it.
+     * 
+     * @param original
+     *            the game to copy
+     */
+    private CFGame(CFGame original) {
+        gameField = new CFGameField();
+        player1 = null;
+        player2 = null;
+        moves = new int[CFGameField.ROW_COUNT * CFGameField.COL_COUNT];
         threats = new CFThreatList(this);
         moveComparer = new CFMoveComparator(this);
+        moveLists = createMoveLists();
+        for (int i = 0; i < original.moveCount; i++) {
+            perform(CFMove.valueOf(original.moves[i]));
+        }
     }
 
 
+    @Override
+    public CFGame copy() {
+        return new CFGame(this);
+    }
+
+
+    /**
+     * create the reusable move lists, one for every possible ply
+     * 
+     * @return the move lists
+     */
+    private static List<List<CFMove>> createMoveLists() {
+        int plies = CFGameField.ROW_COUNT * CFGameField.COL_COUNT + 1;
+        List<List<CFMove>> lists = new ArrayList<List<CFMove>>(plies);
+        for (int i = 0; i < plies; i++) {
+            lists.add(new ArrayList<CFMove>(CFGameField.COL_COUNT));
+        }
+        return lists;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * There is one list per number of pieces on the field, which is reused
+     * by every call in a position with that number of pieces.
+     */
     @Override
     public List<CFMove> getValidMoves() {
-        List<CFMove> list = getGameField().getValidMoves();
-        Collections.sort(list, moveComparer);
+        List<CFMove> list = moveLists.get(moveCount);
+        list.clear();
+        getGameField().addValidMoves(list);
+        moveComparer.sort(list);
         return list;
     }
 
@@ -85,34 +178,29 @@ public class CFGame implements Game<CFMove> {
     /**
      * Locally evaluates the current state of the game with respect
      * to the player who has the turn.
-     * This implementation searches for {@link CFThreat}s and evaluates them
-     * based
-     * on a logarithmic scale of their distance from happening.
+     * This implementation evaluates the {@link CFThreat}s based on a
+     * logarithmic scale of their distance from happening. The rating is kept
+     * up to date by the {@link CFThreatList} on every move, so this takes
+     * constant time.
      * 
      * @return a local evaluation of the current game state
      */
     @Override
-    public double evaluateState() {
-        double evaluation = 0;
+    public int evaluateState() {
+        int evaluation = 0;
         int player = getCurrentPlayer();
         if (state == GameState.PLAYING) {
-            for (CFThreat t : threats) {
-                int danger = gameField.nextPutY(t.getX()) + 1 - t.getY();
-                if (danger > 0) { // not yet reached
-                    double currating = 1d / Math.log(danger + 1);
-                    if (t.getPlayer() == currentPlayerTurn) {
-                        evaluation += currating;
-                    } else {
-                        evaluation -= currating;
-                    }
-                }
+            // the threat list keeps the rating up to date for player 1
+            evaluation = threats.getRating();
+            if (player == 2) {
+                evaluation = -evaluation;
             }
         } else if (state == GameState.PLAYER_1_WON && player == 1
                 || state == GameState.PLAYER_2_WON && player == 2) {
-            evaluation = Double.POSITIVE_INFINITY;
+            evaluation = Score.WIN;
         } else if (state == GameState.PLAYER_1_WON && player == 2
                 || state == GameState.PLAYER_2_WON && player == 1) {
-            evaluation = Double.NEGATIVE_INFINITY;
+            evaluation = -Score.WIN;
         }
         return evaluation;
     }
@@ -130,20 +218,21 @@ public class CFGame implements Game<CFMove> {
     @Override
     public void perform(CFMove move) {
         getGameField().put(move.getX(), getCurrentPlayer());
-        moves.push(move);
+        toggleHash(move.getX(), getCurrentPlayer());
+        moves[moveCount++] = move.getX();
         threats.addNewThreats(move, getCurrentPlayer());
         currentPlayerTurn = getOtherPlayer();
-        moveComparer.updateThreats();
         updateState();
     }
 
 
     @Override
     public void undo() {
-        CFMove move = moves.pop();
-        threats.undoMove();
-        getGameField().remove(move.getX());
+        CFMove move = CFMove.valueOf(moves[--moveCount]);
         currentPlayerTurn = getOtherPlayer();
+        toggleHash(move.getX(), getCurrentPlayer());
+        getGameField().remove(move.getX());
+        threats.undoMove(move);
         state = GameState.PLAYING; // if there was a move to be done, the
                                    // previous state was always PLAYING
     }
@@ -159,6 +248,22 @@ public class CFGame implements Game<CFMove> {
     }
 
 
+    /**
+     * Get a player of this game.
+     * 
+     * @param id
+     *            the player id
+     * @return the player, null if this game is a copy
+     */
+    public Player<CFMove> getPlayer(int id) {
+        if (id == 1) {
+            return player1;
+        } else {
+            return player2;
+        }
+    }
+
+
     /**
      * Get the game field.
      * 
@@ -169,6 +274,16 @@ public class CFGame implements Game<CFMove> {
     }
 
 
+    /**
+     * Get the number of moves done since the beginning of the game.
+     * 
+     * @return the number of moves
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+
     /**
      * Get the player who's turn it currently is.
      * 
@@ -195,25 +310,129 @@ public class CFGame implements Game<CFMove> {
     }
 
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The index of a move is the cell the piece lands on.
+     */
+    @Override
+    public int getMoveIndex(CFMove move) {
+        int x = move.getX();
+        return gameField.nextPutY(x) * CFGameField.COL_COUNT + x;
+    }
+
+
+    @Override
+    public int getMoveIndexCount() {
+        return CFGameField.ROW_COUNT * CFGameField.COL_COUNT;
+    }
+
+
+    @Override
+    public void setMoveHistory(MoveHistory history) {
+        moveComparer.setMoveHistory(history);
+    }
+
+
+    @Override
+    public long getHash() {
+        return hash;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * A position and its left-right mirror image are symmetric, the one with
+     * the smaller hash is the canonical orientation.
+     */
+    @Override
+    public long getCanonicalHash() {
+        return Math.min(hash, mirroredHash);
+    }
+
+
+    @Override
+    public boolean isTransformed() {
+        return mirroredHash < hash;
+    }
+
+
+    @Override
+    public CFMove transformMove(CFMove move) {
+        return CFMove.valueOf(CFGameField.COL_COUNT - 1 - move.getX());
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * A move is quiet if it does not complete a 4-row, does not block a
+     * threat of the opponent and does not create a new threat.
+     */
+    @Override
+    public boolean isQuietMove(CFMove move) {
+        long occupied = gameField.getOccupied();
+        long cell = CFGameField.playableCells(occupied)
+                & CFGameField.columnCells(move.getX());
+        long own = threats.getThreats(getCurrentPlayer());
+        if ((cell & (own | threats.getThreats(getOtherPlayer()))) != 0) {
+            return false;
+        }
+        // a new threat counts even on a cell the opponent threatens, too
+        long pieces = gameField.getPieces(getCurrentPlayer()) | cell;
+        return (CFGameField.winningCells(pieces) & ~own & ~occupied
+                & ~cell) == 0;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The reply is forced if the player who has the turn can not win with
+     * their next piece and has to block exactly one threat of the opponent.
+     */
+    @Override
+    public boolean isForcedPosition() {
+        long playable = gameField.getPlayable();
+        if ((playable & threats.getThreats(getCurrentPlayer())) != 0) {
+            return false;
+        }
+        long forced = playable & threats.getThreats(getOtherPlayer());
+        return forced != 0 && (forced & (forced - 1)) == 0;
+    }
+
+
+    /**
+     * add or remove the uppermost piece of a column to or from the hash and
+     * the hash of the mirror image
+     * 
+     * @param x
+     *            the column
+     * @param player
+     *            the player who owns the piece
+     */
+    private void toggleHash(int x, int player) {
+        int y = gameField.nextPutY(x) + 1;
+        hash ^= ZOBRIST_KEYS[player - 1][y * CFGameField.COL_COUNT + x];
+        mirroredHash ^= ZOBRIST_KEYS[player - 1][y * CFGameField.COL_COUNT
+                + CFGameField.COL_COUNT - 1 - x];
+    }
+
+
     /**
      * recalculate the game state
      * call once after each move
      */
     private void updateState() {
-        for (CFThreat t : threats) {
-            int player = t.getPlayer();
-            int field = gameField.get(t.getX(), t.getY());
-            if (player == field) { // if the player has put a piece where there
-                                   // was a threat
-                if (player == 1) {
-                    state = GameState.PLAYER_1_WON;
-                } else {
-                    state = GameState.PLAYER_2_WON;
-                }
-                break;
+        int player = getOtherPlayer(); // the player who just moved
+        if (gameField.hasWon(player)) {
+            if (player == 1) {
+                state = GameState.PLAYER_1_WON;
+            } else {
+                state = GameState.PLAYER_2_WON;
             }
-        }
-        if (state == GameState.PLAYING && getGameField().isFull()) {
+        } else if (getGameField().isFull()) {
             state = GameState.DRAW;
         }
     }
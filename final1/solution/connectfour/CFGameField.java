@@ -23,14 +23,37 @@ public class CFGameField {
      */
     public static final int COL_COUNT = 7;
 
+    /**
+     * The number of bits reserved for one column in the bitboards. Every
+     * column has one spare bit on top of its {@link #ROW_COUNT} cells, so
+     * shifting a line of pieces never carries into the next column.
+     */
+    public static final int COL_BITS = ROW_COUNT + 1;
+
+    /** the bits of the lowest cell of every column */
+    private static final long BOTTOM_MASK;
+    /** the bits of all cells of the game field */
+    private static final long BOARD_MASK;
+
+    static {
+        long bottom = 0;
+        for (int x = 0; x < COL_COUNT; x++) {
+            bottom |= 1L << (x * COL_BITS);
+        }
+        BOTTOM_MASK = bottom;
+        BOARD_MASK = bottom * ((1L << ROW_COUNT) - 1);
+    }
+
     /**
      * The in-memory representation for the field.
-     * The first coordinate is y for easier output.
-     * The player-id is directly written into this array, 0 is reserved for
-     * empty.
+     * One bitboard per player, indexed by player id - 1. Bit
+     * {@code x * COL_BITS + h} is set when the player has a piece in column x
+     * at height h, counted from the bottom.
      */
-    private final byte[][] field;
-    /** the y-positions of the uppermost pieces */
+    private final long[] pieces;
+    /** all occupied cells, i.e. the union of {@link #pieces} */
+    private long occupied;
+    /** the number of pieces in each column */
     private final int[] stackHeight;
 
 
@@ -38,7 +61,7 @@ public class CFGameField {
      * Initialize a new, empty game field with the standard Connect Four size.
      */
     public CFGameField() {
-        field = new byte[ROW_COUNT][COL_COUNT];
+        pieces = new long[2];
         stackHeight = new int[COL_COUNT];
     }
 
@@ -55,7 +78,11 @@ public class CFGameField {
      */
     public int get(int x, int y) {
         if (inbound(x, y)) {
-            return field[y][x];
+            long bit = bit(x, y);
+            if ((occupied & bit) == 0) {
+                return 0;
+            }
+            return (pieces[0] & bit) != 0 ? 1 : 2;
         } else {
             return -1;
         }
@@ -99,9 +126,10 @@ public class CFGameField {
      *            the player id
      */
     public void put(int x, int player) {
-        int y = nextPutY(x);
-        if (inbound(x, y)) {
-            field[y][x] = (byte) player;
+        if (inbound(x) && stackHeight[x] < ROW_COUNT) {
+            long bit = 1L << (x * COL_BITS + stackHeight[x]);
+            pieces[player - 1] |= bit;
+            occupied |= bit;
             stackHeight[x]++;
         }
     }
@@ -115,8 +143,11 @@ public class CFGameField {
      */
     public void remove(int x) {
         if (inbound(x) && stackHeight[x] > 0) {
-            field[nextPutY(x) + 1][x] = 0;
             stackHeight[x]--;
+            long bit = ~(1L << (x * COL_BITS + stackHeight[x]));
+            pieces[0] &= bit;
+            pieces[1] &= bit;
+            occupied &= bit;
         }
     }
 
@@ -129,12 +160,24 @@ public class CFGameField {
      */
     public List<CFMove> getValidMoves() {
         List<CFMove> validMoves = new ArrayList<CFMove>(COL_COUNT);
+        addValidMoves(validMoves);
+        return validMoves;
+    }
+
+
+    /**
+     * Add all possible moves for the current setting to a list, from left to
+     * right.
+     * 
+     * @param validMoves
+     *            the list to add the moves to
+     */
+    public void addValidMoves(List<CFMove> validMoves) {
         for (int x = 0; x < COL_COUNT; x++) {
-            if (nextPutY(x) >= 0) {
-                validMoves.add(new CFMove(x));
+            if (stackHeight[x] < ROW_COUNT) {
+                validMoves.add(CFMove.valueOf(x));
             }
         }
-        return validMoves;
     }
 
 
@@ -144,10 +187,66 @@ public class CFGameField {
      * @return true if the play field is full
      */
     public boolean isFull() {
-        for (int height : stackHeight) {
-            if (height != ROW_COUNT) { return false; }
+        return occupied == BOARD_MASK;
+    }
+
+
+    /**
+     * check if the given player has four connected pieces in any direction.
+     * Works on the bitboard in constant time: for every direction the board is
+     * shifted onto itself so that only the starting bits of complete 4-rows
+     * remain.
+     * 
+     * @param player
+     *            the player id
+     * @return true if the player has won
+     */
+    public boolean hasWon(int player) {
+        long board = pieces[player - 1];
+        // vertical, horizontal, diagonal /, diagonal \
+        return hasFourInRow(board, 1) || hasFourInRow(board, COL_BITS)
+                || hasFourInRow(board, COL_BITS + 1)
+                || hasFourInRow(board, COL_BITS - 1);
+    }
+
+
+    /**
+     * check a bitboard for four set bits with the given distance each
+     * 
+     * @param board
+     *            the bitboard
+     * @param shift
+     *            the distance of neighbouring cells in the direction to check
+     * @return true if there are four connected bits
+     */
+    private static boolean hasFourInRow(long board, int shift) {
+        long pairs = board & (board >>> shift);
+        return (pairs & (pairs >>> (2 * shift))) != 0;
+    }
+
+
+    /**
+     * Get all cells where the given pieces would complete a 4-row, i.e. the
+     * threats of a player. The cells may already be occupied.
+     * 
+     * @param board
+     *            the bitboard of the pieces of one player
+     * @return the bitboard of all threat cells
+     */
+    public static long winningCells(long board) {
+        // vertical: three pieces below the cell
+        long cells = (board << 1) & (board << 2) & (board << 3);
+        for (int shift = COL_BITS - 1; shift <= COL_BITS + 1; shift++) {
+            // the cell is at the end of a 3-row
+            long pair = (board << shift) & (board << 2 * shift);
+            cells |= pair & (board << 3 * shift);
+            // the cell is the gap in X_XX or XX_X
+            cells |= pair & (board >>> shift);
+            pair = (board >>> shift) & (board >>> 2 * shift);
+            cells |= pair & (board << shift);
+            cells |= pair & (board >>> 3 * shift);
         }
-        return true;
+        return cells & BOARD_MASK;
     }
 
 
@@ -164,6 +263,77 @@ public class CFGameField {
     }
 
 
+    /**
+     * get the bitboard of the pieces of one player
+     * 
+     * @param player
+     *            the player id
+     * @return the bitboard, see {@link #bit(int, int)} for the layout
+     */
+    public long getPieces(int player) {
+        return pieces[player - 1];
+    }
+
+
+    /**
+     * get the bitboard of all occupied cells
+     * 
+     * @return the bitboard, see {@link #bit(int, int)} for the layout
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+
+    /**
+     * get the bitboard of all cells where a piece can be put next, i.e. the
+     * lowest free cell of every column that is not full
+     * 
+     * @return the bitboard of playable cells
+     */
+    public long getPlayable() {
+        return playableCells(occupied);
+    }
+
+
+    /**
+     * get the bitboard of all cells where a piece can be put next
+     * 
+     * @param occupied
+     *            the bitboard of all occupied cells
+     * @return the lowest free cell of every column that is not full
+     */
+    public static long playableCells(long occupied) {
+        return (occupied + BOTTOM_MASK) & BOARD_MASK;
+    }
+
+
+    /**
+     * get the bitboard of all cells of one column
+     * 
+     * @param x
+     *            the column
+     * @return the cells of the column
+     */
+    public static long columnCells(int x) {
+        return ((1L << ROW_COUNT) - 1) << (x * COL_BITS);
+    }
+
+
+    /**
+     * get the bit that represents the given cell in the bitboards
+     * 
+     * @param x
+     *            the column
+     * @param y
+     *            the row, 0 is the top row
+     * @return the bit of the cell
+     */
+    public static long bit(int x, int y) {
+        return 1L << (x * COL_BITS + ROW_COUNT - 1 - y);
+    }
+
+
     /**
      * Get the visual representation of this field.
      * Columns are seperated with |.
@@ -180,8 +350,9 @@ public class CFGameField {
      */
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (byte[] row : field) {
-            for (byte val : row) {
+        for (int y = 0; y < ROW_COUNT; y++) {
+            for (int x = 0; x < COL_COUNT; x++) {
+                int val = get(x, y);
                 sb.append("|" + (val == 0 ? " " : val));
             }
             sb.append("|\n");
@@ -45,7 +45,7 @@ public class CFHumanPlayer implements Player<CFMove> {
         }
         CFMove move;
         if (gameField.inbound(x) && gameField.nextPutY(x) >= 0) {
-            move = new CFMove(x);
+            move = CFMove.valueOf(x);
         } else {
             Terminal.println("Error, Player " + id + ": " + s);
             move = getMove();
@@ -1,5 +1,8 @@
 package final1.connectfour;
 
+import java.io.File;
+import java.io.IOException;
+
 import final1.Terminal;
 import final1.algorithm.GameState;
 
@@ -20,18 +23,24 @@ public final class CFMain {
 
 
     /**
-     * Begin main program. Takes exactly one argument: the number of human
+     * Begin main program. Takes one argument: the number of human
      * players.
      * 0 means computer vs computer,
      * 1 means human vs computer,
      * 2 means human vs human.
+     * An opening book for the computer players, generated by
+     * {@link CFBookGenerator}, can be given as an optional second argument.
      * 
      * @param args
      *            the command line arguments
      */
     public static void main(String[] args) {
-        if (args.length == 1) {
-            parsePlayerCount(args[0]);
+        CFOpeningBook book = null;
+        if (args.length == 2) {
+            book = loadBook(args[1]);
+        }
+        if (args.length == 1 || args.length == 2) {
+            parsePlayerCount(args[0], book);
         } else {
             Terminal.println("Error, invalid argument; excepted human player count (0,1,2)");
             System.exit(1);
@@ -39,14 +48,36 @@ public final class CFMain {
     }
 
 
+    /**
+     * Load the opening book, exit with an error if that is not possible.
+     * 
+     * @param filename
+     *            the book file
+     * @return the book
+     */
+    private static CFOpeningBook loadBook(String filename) {
+        try {
+            return new CFOpeningBook(new File(filename));
+        } catch (IOException e) {
+            Terminal.println("Error, could not load opening book: "
+                    + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+
     /**
      * Try to parse the player count from a string.
      * Start the game if the count is valid, exit with an error otherwise.
      * 
      * @param countString
      *            the unparsed player count.
+     * @param book
+     *            the opening book for the AI players, null if there is none
      */
-    private static void parsePlayerCount(String countString) {
+    private static void parsePlayerCount(String countString,
+            CFOpeningBook book) {
         int humanPlayerCount = -1;
         boolean inputValid = false;
         try {
@@ -59,7 +90,7 @@ public final class CFMain {
         }
 
         if (inputValid) {
-            startGame(humanPlayerCount);
+            startGame(humanPlayerCount, book);
         } else {
             Terminal.println("Error, invalid player count");
             System.exit(1);
@@ -72,9 +103,20 @@ public final class CFMain {
      * 
      * @param playerCount
      *            the number of human players.
+     * @param book
+     *            the opening book for the AI players, null if there is none
      */
-    private static void startGame(int playerCount) {
+    private static void startGame(int playerCount, CFOpeningBook book) {
         CFGame game = new CFGame(playerCount);
+        for (int id = 1; id <= 2; id++) {
+            if (game.getPlayer(id) instanceof CFAIPlayer) {
+                CFAIPlayer player = (CFAIPlayer) game.getPlayer(id);
+                player.setOpeningBook(book);
+                // search every move with all cores
+                player.getOptions().setThreadCount(
+                        Runtime.getRuntime().availableProcessors());
+            }
+        }
 
         // long start = System.nanoTime();
         Terminal.println(game.getGameField().toString());
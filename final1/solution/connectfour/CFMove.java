@@ -10,7 +10,19 @@ import final1.algorithm.Move;
  * @version 1
  * 
  */
-public class CFMove implements Move {
+public final class CFMove implements Move {
+
+    /**
+     * one instance per column, moves are immutable and shared so the search
+     * does not allocate them
+     */
+    private static final CFMove[] MOVES = new CFMove[CFGameField.COL_COUNT];
+
+    static {
+        for (int x = 0; x < MOVES.length; x++) {
+            MOVES[x] = new CFMove(x);
+        }
+    }
 
     private final int x;
 
@@ -21,15 +33,54 @@ public class CFMove implements Move {
      * @param x
      *            the column
      */
-    public CFMove(int x) {
+    private CFMove(int x) {
         this.x = x;
     }
 
 
+    /**
+     * Get the move for the given column.
+     * 
+     * @param x
+     *            the column, must be inbound
+     * @return the shared move instance
+     */
+    public static CFMove valueOf(int x) {
+        return MOVES[x];
+    }
+
+
     /**
      * @return the column
      */
     public int getX() {
         return x;
     }
-}
\ No newline at end of file
+
+
+    @Override
+    public int hashCode() {
+        return x;
+    }
+
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean equal = false;
+        if (this == obj) {
+            equal = true;
+        } else if (obj != null && getClass() == obj.getClass()) {
+            equal = x == ((CFMove) obj).x;
+        }
+        return equal;
+    }
+
+
+    /**
+     * @return the column
+     */
+    @Override
+    public String toString() {
+        return String.valueOf(x);
+    }
+}
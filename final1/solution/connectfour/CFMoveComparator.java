@@ -1,6 +1,9 @@
 package final1.connectfour;
 
 import java.util.Comparator;
+import java.util.List;
+
+import final1.algorithm.MoveHistory;
 
 /**
  * A Comparator for ConnectFourMoves. Compares Moves according to the rules
@@ -8,6 +11,8 @@ import java.util.Comparator;
  * 1. Positive threats in the column
  * 2. Number of generally possible 4-rows crossing the coordinates of the move.
  * 3. Left to right
+ * If a {@link MoveHistory} is set, killer moves are searched right after rule
+ * 1, and the history counters decide between moves that are equal in rule 2.
  * 
  * @author robin
  * @version 1
@@ -22,8 +27,12 @@ public class CFMoveComparator implements Comparator<CFMove> {
             {4, 6, 8, 10, 8, 6, 4}, {5, 8, 11, 13, 11, 8, 5},
             {5, 8, 11, 13, 11, 8, 5}, {4, 6, 8, 10, 8, 6, 4},
             {3, 4, 5, 7, 5, 4, 3}};
+    /** a column of the bitboards */
+    private static final long COLUMN_MASK = (1L << CFGameField.ROW_COUNT) - 1;
     private final byte[] threatAt;
     private final CFGame game;
+    /** the dynamic ordering of the search, null if there is none */
+    private MoveHistory history;
 
 
     /**
@@ -39,22 +48,50 @@ public class CFMoveComparator implements Comparator<CFMove> {
 
 
     /**
-     * update the threat cache for this comparator. Call this after every move
-     * in the game
+     * set the killer moves and history counters to order moves with
+     * 
+     * @param history
+     *            the history, null to use the static ordering only
      */
-    public void updateThreats() {
-        for (int i = 0; i < threatAt.length; i++) {
-            threatAt[i] = 0;
-        }
-        int currentPlayer = game.getCurrentPlayer();
+    public void setMoveHistory(MoveHistory history) {
+        this.history = history;
+    }
 
+
+    /**
+     * update the threat cache for this comparator to the current position
+     */
+    private void updateThreats() {
         CFGameField field = game.getGameField();
-        for (CFThreat t : game.getThreats()) {
-            if (t.getPlayer() == currentPlayer) {
-                if (field.nextPutY(t.getX()) >= t.getY()) {
-                    threatAt[t.getX()] = 1;
-                }
+        // the threats that have not been reached by the stack of their column
+        long open = game.getThreats().getThreats(game.getCurrentPlayer())
+                & ~field.getOccupied();
+        for (int x = 0; x < threatAt.length; x++) {
+            long column = open >>> (x * CFGameField.COL_BITS);
+            threatAt[x] = (byte) ((column & COLUMN_MASK) != 0 ? 1 : 0);
+        }
+    }
+
+
+    /**
+     * Sort a list of moves of the current position with this comparator.
+     * Uses insertion sort, which does not allocate and is fast for the at
+     * most {@link CFGameField#COL_COUNT} moves of a position.
+     * 
+     * @param moves
+     *            the list to sort
+     */
+    public void sort(List<CFMove> moves) {
+        // positions are sorted again after moves were undone
+        updateThreats();
+        for (int i = 1; i < moves.size(); i++) {
+            CFMove move = moves.get(i);
+            int j = i;
+            while (j > 0 && compare(moves.get(j - 1), move) > 0) {
+                moves.set(j, moves.get(j - 1));
+                j--;
             }
+            moves.set(j, move);
         }
     }
 
@@ -67,8 +104,18 @@ public class CFMoveComparator implements Comparator<CFMove> {
         int y2 = game.getGameField().nextPutY(x2);
 
         int rating = threatAt[x2] - threatAt[x1];
+        int index1 = game.getMoveIndex(first);
+        int index2 = game.getMoveIndex(second);
+        if (rating == 0 && history != null) {
+            rating = history.getKillerRank(index2)
+                    - history.getKillerRank(index1);
+        }
         if (rating == 0) {
             rating = POSSIBLE_COUNT[y2][x2] - POSSIBLE_COUNT[y1][x1];
+            if (rating == 0 && history != null) {
+                rating = Integer.compare(history.getHistory(index2),
+                        history.getHistory(index1));
+            }
             if (rating == 0) {
                 rating = x1 - x2;
             }
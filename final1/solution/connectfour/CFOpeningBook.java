@@ -0,0 +1,128 @@
+package final1.connectfour;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An opening book for the Connect Four AI, mapping position hashes to the best
+ * move in that position. The book is generated offline by
+ * {@link CFBookGenerator} and memory-mapped, so looking up a position does
+ * not need to read or parse the whole file.
+ * 
+ * File format, all numbers big-endian:
+ * <ul>
+ * <li>int {@link #MAGIC}</li>
+ * <li>int number of entries</li>
+ * <li>entries sorted by key: long canonical position hash
+ * ({@link CFGame#getCanonicalHash()}), byte column of the best move in the
+ * canonical orientation</li>
+ * </ul>
+ * Only one of a position and its mirror image is stored, the other one is
+ * looked up by mirroring the move.
+ * 
+ * @author robin
+ * @version 2
+ */
+public class CFOpeningBook {
+
+    /**
+     * marks a file as an opening book ("CF4C"). Books of the first version
+     * ("CF4B") used the plain position hash and are no longer accepted.
+     */
+    public static final int MAGIC = 0x43463443;
+    /** the size of the header in bytes */
+    public static final int HEADER_SIZE = 8;
+    /** the size of one entry in bytes */
+    public static final int ENTRY_SIZE = 9;
+
+    /** the mapped file */
+    private final MappedByteBuffer buffer;
+    /** the number of entries in the book */
+    private final int size;
+
+
+    /**
+     * open an opening book
+     * 
+     * @param file
+     *            the book file
+     * @throws IOException
+     *             if the file can not be read or is not an opening book
+     */
+    public CFOpeningBook(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        } finally {
+            in.close();
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not an opening book");
+        }
+        size = buffer.getInt(4);
+        if (buffer.capacity() != HEADER_SIZE + (long) size * ENTRY_SIZE) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+
+
+    /**
+     * look up the best move of the current position of a game
+     * 
+     * @param game
+     *            the game
+     * @return the best move, null if the position is not in the book
+     */
+    public CFMove getMove(CFGame game) {
+        CFMove move = getMove(game.getCanonicalHash());
+        if (move != null && game.isTransformed()) {
+            move = game.transformMove(move);
+        }
+        return move;
+    }
+
+
+    /**
+     * look up the best move of a position with a binary search
+     * 
+     * @param hash
+     *            the canonical hash of the position
+     * @return the best move in the canonical orientation, null if the
+     *         position is not in the book or its entry is invalid
+     */
+    public CFMove getMove(long hash) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER_SIZE + mid * ENTRY_SIZE;
+            long key = buffer.getLong(offset);
+            if (key < hash) {
+                low = mid + 1;
+            } else if (key > hash) {
+                high = mid - 1;
+            } else {
+                int x = buffer.get(offset + 8);
+                // a corrupt book must not break the game
+                if (x < 0 || x >= CFGameField.COL_COUNT) {
+                    return null;
+                }
+                return CFMove.valueOf(x);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * @return the number of positions in the book
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -2,22 +2,67 @@ package final1.connectfour;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Stack;
+import java.util.List;
 
 /**
  * A list of all threats in the game, contains a history for full game course
  * reconstruction / undoing moves and faster and more memory efficient recursion
  * 
+ * The threats of each player are stored as a bitboard with the layout of
+ * {@link CFGameField}, so adding, de-duplicating and undoing threats are a few
+ * bit operations. For every move the threats it added are remembered, so
+ * undoing it is a single XOR.
+ * 
  * @author robin
- * @version 1
+ * @version 3
  */
 public class CFThreatList implements Iterable<CFThreat> {
 
+    /**
+     * The rating of the threats of one player in one column, indexed by
+     * [threat rows][stack height]. The threat rows are a bit mask with bit k
+     * set when there is a threat k rows above the bottom. A threat that is d
+     * rows above the next free position (d >= 1) is rated
+     * {@link #RATING_SCALE} / log(d + 1), rounded to an integer, threats on
+     * occupied positions are not rated.
+     */
+    private static final int[][] COLUMN_RATINGS = new int[1 << CFGameField.ROW_COUNT][CFGameField.ROW_COUNT + 1];
+    /** the scale of the threat ratings, to rate them with integers */
+    private static final int RATING_SCALE = 1000;
+
+    static {
+        for (int mask = 0; mask < COLUMN_RATINGS.length; mask++) {
+            for (int height = 0; height <= CFGameField.ROW_COUNT; height++) {
+                int rating = 0;
+                for (int k = height; k < CFGameField.ROW_COUNT; k++) {
+                    if ((mask & 1 << k) != 0) {
+                        int danger = k - height + 1;
+                        rating += (int) Math.round(RATING_SCALE
+                                / Math.log(danger + 1));
+                    }
+                }
+                COLUMN_RATINGS[mask][height] = rating;
+            }
+        }
+    }
+
+    /** a column of the bitboards */
+    private static final long COLUMN_MASK = (1L << CFGameField.ROW_COUNT) - 1;
+
     /** the field in which the threats happen */
     private final CFGameField field;
-    private final ArrayList<CFThreat> list;
-    /** number of threats that were added in the nth move */
-    private final Stack<Integer> addedCounts;
+    /** the threats of every player as bitboards, indexed by player id - 1 */
+    private final long[] threats;
+    /** the threats that were added in the nth move, for every player */
+    private final long[][] addedThreats;
+    /** the number of moves done */
+    private int moveCount;
+    /** the rating of every column from the view of player 1 */
+    private final int[] columnRatings;
+    /** the sum of {@link #columnRatings} */
+    private int rating;
+    /** the rating before the nth move, restored when undoing it */
+    private final int[] ratingHistory;
 
 
     /**
@@ -28,8 +73,11 @@ public class CFThreatList implements Iterable<CFThreat> {
      */
     public CFThreatList(CFGame game) {
         field = game.getGameField();
-        list = new ArrayList<CFThreat>(40);
-        addedCounts = new Stack<Integer>();
+        int maxMoves = CFGameField.ROW_COUNT * CFGameField.COL_COUNT;
+        threats = new long[2];
+        addedThreats = new long[2][maxMoves];
+        columnRatings = new int[CFGameField.COL_COUNT];
+        ratingHistory = new int[maxMoves];
     }
 
 
@@ -43,130 +91,150 @@ public class CFThreatList implements Iterable<CFThreat> {
      *            the player who did the move
      */
     public void addNewThreats(CFMove move, int player) {
-        int x = move.getX();
-        int y = field.nextPutY(x) + 1;
-        int count = 0;
-        count += addThreatsNear(x, y, 1, 0, player); // horizontal
-        count += addThreatsNear(x, y, 0, 1, player); // vertical
-        count += addThreatsNear(x, y, 1, 1, player); // diagonal1
-        count += addThreatsNear(x, y, 1, -1, player); // diagonal2
-        addedCounts.push(count);
+        long added = CFGameField.winningCells(field.getPieces(player))
+                & ~threats[player - 1];
+        threats[player - 1] |= added;
+        addedThreats[player - 1][moveCount] = added;
+        addedThreats[2 - player][moveCount] = 0;
+        ratingHistory[moveCount] = rating;
+        moveCount++;
+        int changedColumns = columnsOf(added) | 1 << move.getX();
+        int oldRating = sumColumnRatings(changedColumns);
+        updateColumnRatings(changedColumns);
+        rating += sumColumnRatings(changedColumns) - oldRating;
     }
 
 
     /**
-     * undo the last move
+     * undo the last move. Must be called after the move was removed from the
+     * field.
+     * 
+     * @param move
+     *            the move to undo
      */
-    public void undoMove() {
-        int count = addedCounts.pop();
-        while (count-- > 0) {
-            list.remove(list.size() - 1);
-        }
+    public void undoMove(CFMove move) {
+        moveCount--;
+        long added = addedThreats[0][moveCount] | addedThreats[1][moveCount];
+        threats[0] ^= addedThreats[0][moveCount];
+        threats[1] ^= addedThreats[1][moveCount];
+        updateColumnRatings(columnsOf(added) | 1 << move.getX());
+        rating = ratingHistory[moveCount];
     }
 
 
     /**
-     * add all threats from the middle point x,y in the direction xadd,yadd.
-     * Example: {@code
-     * M = (x,y),             player just put a piece here
-     * R = (x,y)+(xadd,yadd)  so it will be checked if he has a piece here
-     * L = (x,y)-(xadd,yadd)  and here
-     * T = threat position    then threats will be added here
-     * | |T| | | | | |
-     * | | |L| | | | |
-     * | | | |M| | | |
-     * | | | | |R| | |
-     * | | | | | |T| |
-     * }
+     * Get the threats of a player as a bitboard with the layout of
+     * {@link CFGameField}. This may include threats on positions that are
+     * already occupied.
      * 
-     * @param x
-     *            coordinate of the middle position
-     * @param y
-     *            coordinate of the middle position
-     * @param xadd
-     *            -1 or +1 direction
-     * @param yadd
-     *            -1 or +1
+     * @param player
+     *            the player id
+     * @return the bitboard of threats
      */
-    private int addThreatsNear(int x, int y, int xadd, int yadd, int player) {
-        boolean l1 = field.get(x - xadd * 1, y - yadd * 1) == player;
-        boolean r1 = field.get(x + xadd * 1, y + yadd * 1) == player;
-        boolean l2 = field.get(x - xadd * 2, y - yadd * 2) == player;
-        boolean r2 = field.get(x + xadd * 2, y + yadd * 2) == player;
-        boolean l3 = field.get(x - xadd * 3, y - yadd * 3) == player;
-        boolean r3 = field.get(x + xadd * 3, y + yadd * 3) == player;
-        int count = 0;
-
-        // |X|M|X|T|
-        // | |M|X|T|X
-        if (r1 && l1) {
-            count += threatAdd(x + xadd * 2, y + yadd * 2, player);
-            count += threatAdd(x - xadd * 2, y - yadd * 2, player);
-        }
+    public long getThreats(int player) {
+        return threats[player - 1];
+    }
 
 
-        if (r1 && r3) {
-            count += threatAdd(x + xadd * 2, y + yadd * 2, player);
-        }
-        // gap: |X|M|T|X|
-        // 3right: |M|T|X|X|
-        else if (r2 && (r3 || l1)) {
-            count += threatAdd(x + xadd, y + yadd, player);
-        }
-        // 2right: |T|M|X|X|T|
-        else if (r1 && r2) {
-            count += threatAdd(x + xadd * 3, y + yadd * 3, player);
-            count += threatAdd(x - xadd, y - yadd, player);
-        }
+    /**
+     * Get the rating of all threats from the view of player 1, i.e. the sum
+     * of the ratings of the threats of player 1 minus the sum of the ratings
+     * of the threats of player 2. The rating is updated on every move, so
+     * this takes constant time.
+     * 
+     * @return the rating
+     */
+    public int getRating() {
+        return rating;
+    }
 
-        // |X|M|X|T|
-        // | |M|X|T|X
-        if (l1 && l3) {
-            count += threatAdd(x - xadd * 2, y - yadd * 2, player);
-        }
-        // gap: |X|M|T|X|
-        // 3right: |M|T|X|X|
-        else if (l2 && (l3 || r1)) {
-            count += threatAdd(x - xadd, y - yadd, player);
-        }
-        // 2right: |T|M|X|X|T|
-        else if (l1 && l2) {
-            count += threatAdd(x - xadd * 3, y - yadd * 3, player);
-            count += threatAdd(x + xadd, y + yadd, player);
+
+    /**
+     * sum up the ratings of some columns
+     * 
+     * @param columns
+     *            the columns as a bit mask
+     * @return the sum of their ratings
+     */
+    private int sumColumnRatings(int columns) {
+        int sum = 0;
+        for (int x = 0; x < CFGameField.COL_COUNT; x++) {
+            if ((columns & 1 << x) != 0) {
+                sum += columnRatings[x];
+            }
         }
+        return sum;
+    }
 
-        return count;
+
+    /**
+     * recalculate the ratings of some columns
+     * 
+     * @param columns
+     *            the columns as a bit mask
+     */
+    private void updateColumnRatings(int columns) {
+        for (int x = 0; x < CFGameField.COL_COUNT; x++) {
+            if ((columns & 1 << x) != 0) {
+                int height = CFGameField.ROW_COUNT - 1 - field.nextPutY(x);
+                columnRatings[x] = COLUMN_RATINGS[column(threats[0], x)][height]
+                        - COLUMN_RATINGS[column(threats[1], x)][height];
+            }
+        }
     }
 
 
     /**
-     * Creates a new threat at the position and adds it to the list, if it is
-     * not already in it
+     * get one column of a bitboard
      * 
+     * @param board
+     *            the bitboard
      * @param x
-     *            coordinate
-     * @param y
-     *            coordinate
-     * @param player
-     *            player id
-     * @return
-     *         the amount of threats added (0 or 1)
+     *            the column
+     * @return the bits of the column, bit k is the cell k rows above the
+     *         bottom
+     */
+    private static int column(long board, int x) {
+        return (int) (board >>> (x * CFGameField.COL_BITS) & COLUMN_MASK);
+    }
+
+
+    /**
+     * get the columns in which a bitboard has cells
+     * 
+     * @param board
+     *            the bitboard
+     * @return the columns as a bit mask
      */
-    private int threatAdd(int x, int y, int player) {
-        int count = 0;
-        if (field.inbound(x, y)) {
-            CFThreat t = new CFThreat(x, y, player);
-            if (!list.contains(t)) {
-                list.add(t);
-                count++;
+    private static int columnsOf(long board) {
+        int columns = 0;
+        for (int x = 0; x < CFGameField.COL_COUNT; x++) {
+            if (column(board, x) != 0) {
+                columns |= 1 << x;
             }
         }
-        return count;
+        return columns;
     }
 
 
+    /**
+     * Iterate over all threats. Creates a {@link CFThreat} for every threat,
+     * so the search should use {@link #getThreats(int)} instead.
+     * 
+     * @return the iterator
+     */
     @Override
     public Iterator<CFThreat> iterator() {
+        List<CFThreat> list = new ArrayList<CFThreat>();
+        for (int player = 1; player <= 2; player++) {
+            for (int y = 0; y < CFGameField.ROW_COUNT; y++) {
+                for (int x = 0; x < CFGameField.COL_COUNT; x++) {
+                    if ((threats[player - 1] & CFGameField.bit(x, y)) != 0) {
+                        list.add(new CFThreat(x, y, player));
+                    }
+                }
+            }
+        }
         return list.iterator();
     }
 
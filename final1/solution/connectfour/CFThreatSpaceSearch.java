@@ -0,0 +1,192 @@
+package final1.connectfour;
+
+/**
+ * A threat-space search, which looks for forced wins far beyond the depth of
+ * the heuristic search. Only moves of the attacking player that create an
+ * immediate threat are searched, i.e. a threat the opponent has to block with
+ * their next piece. The reply of the opponent is forced, so every line is
+ * searched with one move per ply of the opponent, until the attacker creates
+ * two immediate threats at once or can complete a 4-row. A win found this way
+ * is proven, but a position can still be won if no win is found.
+ * 
+ * The threats of the searched position are taken from the {@link CFThreatList}
+ * of the game, the threats of later positions are computed on the bitboards.
+ * 
+ * @author robin
+ * @version 1
+ */
+public class CFThreatSpaceSearch {
+
+    /** the default maximum number of nodes per search */
+    public static final long NODE_LIMIT = 100000;
+
+    /** the columns in the order they are searched, center first */
+    private static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+    /** the size of the table of failed positions as a power of two */
+    private static final int TABLE_SIZE_BITS = 16;
+
+    /**
+     * The keys of positions in which the attacker has no forced win by
+     * threats, with the attacker to move. The key current + occupied is unique
+     * for every position. The result does not depend on the searched root, so
+     * the table is kept over multiple searches.
+     */
+    private final long[] failed;
+    /** the maximum number of nodes per search */
+    private long nodeLimit;
+    /** the nodes visited by the last search */
+    private long nodes;
+    /** the first move of the win found by the last search */
+    private int winningColumn;
+    /** the length of the win found by the last search in plies, 0 if none */
+    private int winPlies;
+
+
+    /**
+     * initialize a search with an empty table and a limit of
+     * {@link #NODE_LIMIT} nodes
+     */
+    public CFThreatSpaceSearch() {
+        failed = new long[1 << TABLE_SIZE_BITS];
+        nodeLimit = NODE_LIMIT;
+    }
+
+
+    /**
+     * set the maximum number of nodes per search. If the limit is reached,
+     * the search gives up.
+     * 
+     * @param nodeLimit
+     *            the node limit, must be > 0
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+
+    /**
+     * Search a forced win by threats for the player who has the turn.
+     * 
+     * @param game
+     *            the game, which must still be running
+     * @return the first move of the win, null if none was found
+     */
+    public CFMove findWin(CFGame game) {
+        CFGameField field = game.getGameField();
+        CFThreatList threats = game.getThreats();
+        long occupied = field.getOccupied();
+        nodes = 0;
+        winPlies = search(field.getPieces(game.getCurrentPlayer()), occupied,
+                threats.getThreats(game.getCurrentPlayer()) & ~occupied,
+                threats.getThreats(game.getOtherPlayer()) & ~occupied, 0);
+        return winPlies > 0 ? CFMove.valueOf(winningColumn) : null;
+    }
+
+
+    /**
+     * @return the nodes visited by the last search
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+
+    /**
+     * @return the number of plies until the win found by the last search,
+     *         including the moves of the opponent, 0 if none was found
+     */
+    public int getWinPlies() {
+        return winPlies;
+    }
+
+
+    /**
+     * Recursively search a forced win of the attacker, who has the turn. A
+     * move that does not create an immediate threat, or that allows the
+     * defender to win with their next piece, is not searched.
+     * 
+     * @param attacker
+     *            the pieces of the attacker
+     * @param occupied
+     *            all occupied cells
+     * @param attackerThreats
+     *            the empty cells that complete a 4-row of the attacker
+     * @param defenderThreats
+     *            the empty cells that complete a 4-row of the defender
+     * @param ply
+     *            the distance from the searched position
+     * @return the number of plies until the win, 0 if none was found
+     */
+    private int search(long attacker, long occupied, long attackerThreats,
+            long defenderThreats, int ply) {
+        if (++nodes > nodeLimit) {
+            return 0;
+        }
+        long playable = CFGameField.playableCells(occupied);
+        long wins = playable & attackerThreats;
+        if (wins != 0) {
+            return win(wins, 1, ply);
+        }
+        long key = attacker + occupied;
+        int slot = (int) (key ^ key >>> 32) & (failed.length - 1);
+        if (failed[slot] == key) {
+            return 0;
+        }
+        long candidates = playable & defenderThreats;
+        if ((candidates & (candidates - 1)) != 0) {
+            // two threats of the defender can not be blocked at once
+            return 0;
+        } else if (candidates == 0) {
+            candidates = playable;
+        }
+        // do not put a piece directly below a threat of the defender
+        candidates &= ~(defenderThreats >>> 1);
+        for (int x : COLUMN_ORDER) {
+            long move = candidates & CFGameField.columnCells(x);
+            if (move == 0) {
+                continue;
+            }
+            long next = occupied | move;
+            long threats = CFGameField.winningCells(attacker | move) & ~next;
+            long immediate = threats & CFGameField.playableCells(next);
+            if ((immediate & (immediate - 1)) != 0) {
+                return win(move, 3, ply);
+            } else if (immediate == 0 || (immediate & defenderThreats) != 0) {
+                // no threat, or the defender wins by blocking it
+                continue;
+            }
+            long blocked = next | immediate;
+            long defender = (attacker ^ occupied) | immediate;
+            int plies = search(attacker | move, blocked, threats,
+                    CFGameField.winningCells(defender) & ~blocked, ply + 2);
+            if (plies > 0) {
+                return win(move, plies + 2, ply);
+            }
+        }
+        if (nodes <= nodeLimit) {
+            failed[slot] = key;
+        }
+        return 0;
+    }
+
+
+    /**
+     * remember the first move of a win, if it is done in the searched
+     * position
+     * 
+     * @param move
+     *            the cells of the possible first moves
+     * @param plies
+     *            the number of plies until the win
+     * @param ply
+     *            the distance from the searched position
+     * @return plies
+     */
+    private int win(long move, int plies, int ply) {
+        if (ply == 0) {
+            winningColumn = Long.numberOfTrailingZeros(move)
+                    / CFGameField.COL_BITS;
+        }
+        return plies;
+    }
+}
@@ -0,0 +1,215 @@
+package final1.connectfour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import final1.Terminal;
+import final1.algorithm.GameState;
+
+/**
+ * Plays many games between two configurations of the {@link CFAIPlayer} to
+ * compare them. The games are played in parallel, one thread per processor,
+ * without printing the moves. Every game starts with a few random moves, and
+ * every random opening is played twice, so that each configuration plays
+ * both sides of it.
+ * 
+ * @author robin
+ * @version 1
+ */
+public final class CFTournament {
+
+    /** the default number of random moves at the beginning of every game */
+    private static final int OPENING_PLIES = 4;
+    /** the seed of the random openings, so tournaments can be repeated */
+    private static final long SEED = 0x4346L;
+
+    /** the two configurations that play against each other */
+    private final CFEngineConfig[] configs;
+    /** the number of games to play */
+    private final int games;
+    /** the number of random moves at the beginning of every game */
+    private final int openingPlies;
+    /** the index of the next game that is not played yet */
+    private final AtomicInteger nextGame = new AtomicInteger();
+
+
+    /**
+     * initialize a tournament
+     * 
+     * @param configs
+     *            the two configurations that play against each other
+     * @param games
+     *            the number of games to play
+     * @param openingPlies
+     *            the number of random moves at the beginning of every game
+     */
+    private CFTournament(CFEngineConfig[] configs, int games,
+            int openingPlies) {
+        this.configs = configs;
+        this.games = games;
+        this.openingPlies = openingPlies;
+    }
+
+
+    /**
+     * Play a tournament and print the results of both configurations.
+     * Arguments: the number of games, the two configurations as described in
+     * {@link CFEngineConfig} and optionally the number of random moves at the
+     * beginning of every game, which defaults to {@value #OPENING_PLIES}.
+     * 
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 4) {
+            Terminal.println("Error, expected arguments: "
+                    + "games configA configB [openingPlies]");
+            System.exit(1);
+        }
+        int games = 0;
+        int openingPlies = OPENING_PLIES;
+        CFEngineConfig[] configs = new CFEngineConfig[2];
+        try {
+            games = Integer.parseInt(args[0]);
+            if (args.length == 4) {
+                openingPlies = Integer.parseInt(args[3]);
+            }
+            configs[0] = CFEngineConfig.parse(args[1]);
+            configs[1] = CFEngineConfig.parse(args[2]);
+        } catch (IllegalArgumentException e) {
+            Terminal.println("Error, invalid argument: " + e.getMessage());
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        CFTournament tournament = new CFTournament(configs, games,
+                openingPlies);
+        CFEngineStatistics[] results = tournament.run(Runtime.getRuntime()
+                .availableProcessors());
+        for (int i = 0; i < 2; i++) {
+            Terminal.println(configs[i] + ": " + results[i]);
+        }
+        Terminal.println(games + " games in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+
+    /**
+     * play all games
+     * 
+     * @param threadCount
+     *            the number of threads to play with
+     * @return the merged results of both configurations
+     */
+    private CFEngineStatistics[] run(int threadCount) {
+        List<CFEngineStatistics[]> threadResults = new ArrayList<CFEngineStatistics[]>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            final CFEngineStatistics[] results = {new CFEngineStatistics(),
+                    new CFEngineStatistics() };
+            Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    playGames(results);
+                }
+            });
+            thread.start();
+            threadResults.add(results);
+            threads.add(thread);
+        }
+        CFEngineStatistics[] total = {new CFEngineStatistics(),
+                new CFEngineStatistics() };
+        for (int i = 0; i < threadCount; i++) {
+            try {
+                threads.get(i).join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            total[0].merge(threadResults.get(i)[0]);
+            total[1].merge(threadResults.get(i)[1]);
+        }
+        return total;
+    }
+
+
+    /**
+     * play games until all games are played, reusing one game and its
+     * players for all of them
+     * 
+     * @param results
+     *            the results of both configurations
+     */
+    private void playGames(CFEngineStatistics[] results) {
+        CFGame game = new CFGame(0);
+        CFAIPlayer[] players = {(CFAIPlayer) game.getPlayer(1),
+                (CFAIPlayer) game.getPlayer(2) };
+        int index = nextGame.getAndIncrement();
+        while (index < games) {
+            playGame(game, players, index, results);
+            while (game.getMoveCount() > 0) {
+                game.undo();
+            }
+            index = nextGame.getAndIncrement();
+        }
+    }
+
+
+    /**
+     * play one game. In even games, the first configuration plays as player
+     * 1, in odd games as player 2.
+     * 
+     * @param game
+     *            the game in its initial state
+     * @param players
+     *            the players of the game
+     * @param index
+     *            the index of the game
+     * @param results
+     *            the results of both configurations
+     */
+    private void playGame(CFGame game, CFAIPlayer[] players, int index,
+            CFEngineStatistics[] results) {
+        int first = index % 2;
+        for (int id = 1; id <= 2; id++) {
+            configs[(id - 1 + first) % 2].apply(players[id - 1]);
+            players[id - 1].clearTable();
+        }
+        playOpening(game, new Random(SEED + index / 2));
+        while (game.getState() == GameState.PLAYING) {
+            int id = game.getCurrentPlayer();
+            CFAIPlayer player = players[id - 1];
+            long start = System.nanoTime();
+            CFMove move = player.chooseMove();
+            long nanos = System.nanoTime() - start;
+            results[(id - 1 + first) % 2].addMove(nanos,
+                    player.isMoveSearched() ? player.getLastStatistics()
+                            : null);
+            game.perform(move);
+        }
+        for (int id = 1; id <= 2; id++) {
+            results[(id - 1 + first) % 2].addGame(game.getState(), id);
+        }
+    }
+
+
+    /**
+     * do the random moves at the beginning of a game
+     * 
+     * @param game
+     *            the game in its initial state
+     * @param random
+     *            the source of the moves
+     */
+    private void playOpening(CFGame game, Random random) {
+        for (int i = 0; i < openingPlies
+                && game.getState() == GameState.PLAYING; i++) {
+            int x = random.nextInt(CFGameField.COL_COUNT);
+            while (game.getGameField().nextPutY(x) < 0) {
+                x = random.nextInt(CFGameField.COL_COUNT);
+            }
+            game.perform(CFMove.valueOf(x));
+        }
+    }
+}